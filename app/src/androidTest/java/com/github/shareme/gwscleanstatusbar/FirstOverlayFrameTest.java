@@ -0,0 +1,65 @@
+package com.github.shareme.gwscleanstatusbar;
+
+import android.content.Intent;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import com.github.shareme.gwscleanstatusbar.core.LatencyHistogram;
+import com.github.shareme.gwscleanstatusbar.util.ApplyLatencyStats;
+
+/**
+ * Starts the service the way the master switch does and reports the time to the first drawn
+ * overlay frame. It is only held to a budget when one is passed, for devices fast enough to
+ * mean something:
+ *
+ * <pre>
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.firstFrameBudgetMicros=250000
+ * </pre>
+ */
+public class FirstOverlayFrameTest extends AndroidTestCase {
+    private static final String TAG = "FirstOverlayFrameTest";
+    private static final String ARGUMENT_BUDGET_MICROS = "firstFrameBudgetMicros";
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Override
+    protected void tearDown() throws Exception {
+        getContext().stopService(new Intent(getContext(), CleanStatusBarService.class));
+        ApplyLatencyStats.getInstance().reset();
+
+        super.tearDown();
+    }
+
+    public void testFirstFrameIsDrawn() throws Exception {
+        Intent service = new Intent(getContext(), CleanStatusBarService.class);
+        getContext().stopService(service);
+        waitFor(false);
+        ApplyLatencyStats.getInstance().reset();
+
+        service.putExtra(CleanStatusBarService.EXTRA_REQUESTED_AT_NANOS, System.nanoTime());
+        getContext().startService(service);
+
+        LatencyHistogram firstFrame = ApplyLatencyStats.getInstance().getHistogram(ApplyLatencyStats.STAGE_FIRST_FRAME);
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        while (firstFrame.getCount() == 0 && SystemClock.uptimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals("no first frame within " + TIMEOUT_MILLIS + "ms", 1, firstFrame.getCount());
+        Log.i(TAG, "first frame took " + firstFrame.getMax() + "us");
+
+        String budget = InstrumentationRegistry.getArguments().getString(ARGUMENT_BUDGET_MICROS);
+        if (budget != null) {
+            assertTrue("first frame took " + firstFrame.getMax() + "us, budget " + budget + "us",
+                    firstFrame.getMax() <= Long.parseLong(budget));
+        }
+    }
+
+    private static void waitFor(boolean isRunning) throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + TIMEOUT_MILLIS;
+        while (CleanStatusBarService.isRunning() != isRunning && SystemClock.uptimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
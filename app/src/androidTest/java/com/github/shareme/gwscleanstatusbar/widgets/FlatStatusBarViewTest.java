@@ -0,0 +1,55 @@
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+/**
+ * Renders every profile through both the inflated layout and the single view and compares the pixels.
+ */
+public class FlatStatusBarViewTest extends AndroidTestCase {
+    private static final int[] API_LEVELS = {Build.VERSION_CODES.JELLY_BEAN, Build.VERSION_CODES.KITKAT, Build.VERSION_CODES.LOLLIPOP};
+    private static final int[] NETWORK_ICONS = {-1, 0, 1, 2, 3, 4, 5, 99};
+
+    public void testMatchesLayoutForAllProfiles() {
+        for (int apiLevel : API_LEVELS) {
+            for (int networkIcon : NETWORK_ICONS) {
+                for (int flags = 0; flags < 8; flags++) {
+                    StatusBarState state = new StatusBarState.Builder()
+                            .setApiLevel(apiLevel)
+                            .setKitKatGradientEnabled((flags & 1) != 0)
+                            .setShowWifi((flags & 2) != 0)
+                            .setShowGps((flags & 4) != 0)
+                            .setNetworkIcon(networkIcon)
+                            .setBackgroundColour(0xff33b5e5)
+                            .setClockTime("12:00")
+                            .build();
+
+                    Bitmap expected = render(new StatusBarView(getContext()), state);
+                    Bitmap actual = render(new FlatStatusBarView(getContext()), state);
+                    assertTrue("pixels differ for " + state, expected.sameAs(actual));
+                }
+            }
+        }
+    }
+
+    private Bitmap render(View view, StatusBarState state) {
+        ((StatusBarRenderer) view).setStatusBarState(state);
+
+        int width = getContext().getResources().getDisplayMetrics().widthPixels;
+        int height = new StatusBarConfig(state.getApiLevel(), state.isKitKatGradientEnabled(),
+                getContext().getResources(), getContext().getAssets()).getStatusBarHeight();
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+/**
+ * Changes made only to the children of a baked {@link StatusBarView} have to reach its bitmap.
+ */
+public class StatusBarViewBakedTest extends AndroidTestCase {
+    private static final StatusBarState STATE = new StatusBarState.Builder()
+            .setApiLevel(Build.VERSION_CODES.LOLLIPOP)
+            .setNetworkIcon(5)
+            .setBackgroundColour(0xff33b5e5)
+            .setClockTime("1:11")
+            .build();
+
+    public void testReservingClockWidthRedrawsBakedBitmap() {
+        StatusBarView baked = new StatusBarView(getContext());
+        baked.setBaked(true);
+        baked.setStatusBarState(STATE);
+        Bitmap unreserved = render(baked);
+
+        baked.setClockWidthReserved(true);
+        Bitmap reserved = render(baked);
+
+        StatusBarView live = new StatusBarView(getContext());
+        live.setStatusBarState(STATE);
+        live.setClockWidthReserved(true);
+
+        assertFalse("reserving the width should move the icons", unreserved.sameAs(reserved));
+        assertTrue("baked pixels are stale", render(live).sameAs(reserved));
+    }
+
+    private Bitmap render(View view) {
+        int width = getContext().getResources().getDisplayMetrics().widthPixels;
+        int height = new StatusBarConfig(STATE.getApiLevel(), false, getContext().getResources(),
+                getContext().getAssets()).getStatusBarHeight();
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+}
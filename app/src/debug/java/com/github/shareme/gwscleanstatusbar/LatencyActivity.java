@@ -0,0 +1,104 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar;
+
+import android.app.Activity;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.os.Handler;
+import android.view.View;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import com.github.shareme.gwscleanstatusbar.core.LatencyHistogram;
+import com.github.shareme.gwscleanstatusbar.util.ApplyLatencyStats;
+
+import java.util.Locale;
+
+/**
+ * Debug screen with the {@link ApplyLatencyStats} histograms, refreshed twice a second.
+ */
+public class LatencyActivity extends Activity {
+    private static final long REFRESH_INTERVAL_MILLIS = 500;
+
+    private final Handler mHandler = new Handler();
+    private TextView mStatsView;
+
+    private final Runnable mRefresh = new Runnable() {
+        @Override
+        public void run() {
+            mStatsView.setText(formatStats(ApplyLatencyStats.getInstance(), getString(R.string.latency_header)));
+            mHandler.postDelayed(this, REFRESH_INTERVAL_MILLIS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.setPadding(padding, padding, padding, padding);
+
+        mStatsView = new TextView(this);
+        mStatsView.setTypeface(Typeface.MONOSPACE);
+        layout.addView(mStatsView);
+
+        Button resetButton = new Button(this);
+        resetButton.setText(R.string.latency_reset);
+        resetButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                ApplyLatencyStats.getInstance().reset();
+                mHandler.removeCallbacks(mRefresh);
+                mRefresh.run();
+            }
+        });
+        layout.addView(resetButton);
+
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(layout);
+        setContentView(scrollView);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+
+        mRefresh.run();
+    }
+
+    @Override
+    protected void onPause() {
+        mHandler.removeCallbacks(mRefresh);
+
+        super.onPause();
+    }
+
+    static String formatStats(ApplyLatencyStats stats, String header) {
+        StringBuilder builder = new StringBuilder(header);
+        for (int stage = 0; stage < ApplyLatencyStats.STAGE_COUNT; stage++) {
+            LatencyHistogram histogram = stats.getHistogram(stage);
+            builder.append('\n').append(String.format(Locale.US, "%-8s %7d %6d %6d %6d %6d",
+                    ApplyLatencyStats.getStageName(stage), histogram.getCount(), histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99), histogram.getMax()));
+        }
+        return builder.toString();
+    }
+}
@@ -16,31 +16,96 @@
  */
 package com.github.shareme.gwscleanstatusbar;
 
+import android.Manifest;
+import android.annotation.TargetApi;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.graphics.PixelFormat;
+import android.content.IntentFilter;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
 import android.preference.PreferenceManager;
 import android.support.v4.app.NotificationCompat;
-import android.view.Gravity;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.Display;
+import android.view.View;
 import android.view.WindowManager;
 
-import com.github.shareme.gwscleanstatusbar.prefs.TimePreference;
-import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
-import com.github.shareme.gwscleanstatusbar.widgets.StatusBarView;
+import com.github.shareme.gwscleanstatusbar.core.LatencyHistogram;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarScenario;
+import com.github.shareme.gwscleanstatusbar.util.ApplyLatencyStats;
+import com.github.shareme.gwscleanstatusbar.util.LiveClock;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarMailbox;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarPreferences;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarPrewarmer;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+import com.github.shareme.gwscleanstatusbar.util.TintedDrawableCache;
+import com.github.shareme.gwscleanstatusbar.util.TypefaceRegistry;
+import com.github.shareme.gwscleanstatusbar.widgets.StatusBarRenderer;
 
-public class CleanStatusBarService extends Service {
+import java.io.FileDescriptor;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class CleanStatusBarService extends Service implements StatusBarPreferences.Listener, StatusBarMailbox.Target,
+        LiveClock.Listener, ScenarioPlayer.Host {
+    private static final String TAG = "CleanStatusBarService";
     private static final int NOTIFICATION_ID = 1;
+
+    /**
+     * Optional System.nanoTime() of the change that made the caller start the service, used to
+     * time the Intent delivery.
+     */
+    public static final String EXTRA_REQUESTED_AT_NANOS = "com.github.shareme.gwscleanstatusbar.extra.REQUESTED_AT_NANOS";
     private static boolean sIsRunning = false;
 
-    private WindowManager mWindowManager;
-    private static StatusBarView mStatusBarView;
-    private StatusBarConfig mStatusBarConfig;
+    // keyed by display id, the default display always has one
+    private final SparseArray<StatusBarOverlay> mOverlays = new SparseArray<>();
+    private DisplayManager mDisplayManager;
+    private DisplayManager.DisplayListener mDisplayListener;
     private NotificationManager mNotificationManager;
+    private StatusBarPreferences mPreferences;
+    private StatusBarMailbox mMailbox;
+    private LiveClock mLiveClock;
+    private ScenarioPlayer mScenarioPlayer;
+    private boolean mIsNotificationShown;
+    private boolean mIsFirstFramePosted;
+    private long mCreatedAtNanos;
+    private final Messenger mMessenger = new Messenger(new IncomingHandler(this));
+    private final BroadcastReceiver mCommandReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (StatusBarMessages.ACTION_COMMAND.equals(action)) {
+                handleCommands(intent.getExtras());
+            } else if (StatusBarMessages.ACTION_PLAY_SCENARIO.equals(action)) {
+                loadScenario(intent.getStringExtra(StatusBarMessages.EXTRA_PATH), getIntExtra(intent, StatusBarMessages.EXTRA_FPS));
+            } else if (StatusBarMessages.ACTION_STOP_SCENARIO.equals(action)) {
+                mScenarioPlayer.stop();
+            }
+        }
+    };
+
+    // what should be on screen, the preferences plus any deltas pushed through the binder
+    private StatusBarState mState;
+    private StatusBarState mAppliedState;
 
     public CleanStatusBarService() {
     }
@@ -48,48 +113,319 @@ public class CleanStatusBarService extends Service {
     @Override
     public void onCreate() {
         super.onCreate();
+        mCreatedAtNanos = System.nanoTime();
 
-        mWindowManager = (WindowManager) getSystemService(Context.WINDOW_SERVICE);
         mNotificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
 
+        mPreferences = new StatusBarPreferences(this, PreferenceManager.getDefaultSharedPreferences(this));
+        mPreferences.setListener(this);
+        mState = mPreferences.getState();
+        // runs while the main thread inflates and adds the overlay
+        StatusBarPrewarmer.prewarm(this, mState);
+
+        mMailbox = new StatusBarMailbox(this);
+        mMailbox.setLatencyStats(ApplyLatencyStats.getInstance());
+
+        mOverlays.put(Display.DEFAULT_DISPLAY, new StatusBarOverlay(this, Display.DEFAULT_DISPLAY));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            startTrackingDisplays();
+        }
+
+        mLiveClock = new LiveClock(this, this);
+        mScenarioPlayer = new ScenarioPlayer(this, this);
+        updateLiveClock();
+
+        IntentFilter filter = new IntentFilter(StatusBarMessages.ACTION_COMMAND);
+        filter.addAction(StatusBarMessages.ACTION_PLAY_SCENARIO);
+        filter.addAction(StatusBarMessages.ACTION_STOP_SCENARIO);
+        // DUMP keeps it to adb and the system
+        registerReceiver(mCommandReceiver, filter, Manifest.permission.DUMP, null);
+
         sIsRunning = true;
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        mStatusBarConfig = new StatusBarConfig(MainActivity.getAPIValue(this, getSharedPrefs()), isKitKatGradientEnabled(), getResources(), getAssets());
-
-        if (mStatusBarView == null) {
-            mStatusBarView = new StatusBarView(this);
-            mWindowManager.addView(mStatusBarView, getWindowManagerParams());
+        long now = System.nanoTime();
+        long requestedAtNanos = intent != null ? intent.getLongExtra(EXTRA_REQUESTED_AT_NANOS, now) : now;
+        if (requestedAtNanos != now) {
+            ApplyLatencyStats.getInstance().record(ApplyLatencyStats.STAGE_INTENT, requestedAtNanos, now);
         }
-        mStatusBarView.setStatusBarConfig(mStatusBarConfig, getBackgroundColour(), getClockTime(), showWifiIcon(), show3gIcon(), showGpsIcon());
 
-        showNotification();
+        Runnable onDrawn = null;
+        if (!mIsFirstFramePosted) {
+            mIsFirstFramePosted = true;
+            onDrawn = new FirstFrame(Math.min(mCreatedAtNanos, requestedAtNanos));
+        }
+        mMailbox.post(mState, onDrawn, requestedAtNanos);
 
         return super.onStartCommand(intent, flags, startId);
     }
 
-    private WindowManager.LayoutParams getWindowManagerParams() {
-        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
-                WindowManager.LayoutParams.MATCH_PARENT,
-                WindowManager.LayoutParams.WRAP_CONTENT,
-                WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY,
-                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
-                PixelFormat.TRANSLUCENT); // must be translucent to support KitKat gradient
-        params.gravity = Gravity.TOP;
-        params.height = mStatusBarConfig.getStatusBarHeight();
-        return params;
+    @Override
+    public void onStatusBarPreferenceChanged(String key) {
+        if (mPreferences.isOtherDisplaysKey(key) && mDisplayManager != null) {
+            updateOverlays();
+        }
+        mState = mPreferences.merge(key, mState);
+        if (mLiveClock.isRunning()) {
+            mState = new StatusBarState.Builder(mState).setClockTime(mLiveClock.getTime()).build();
+        }
+        updateLiveClock();
+        mMailbox.post(mState);
+    }
+
+    private void updateLiveClock() {
+        // a scenario sets its own clock
+        if (mPreferences.isLiveClockEnabled() && !mScenarioPlayer.isPlaying()) {
+            mLiveClock.start(mPreferences.is24HourFormat());
+        } else if (mLiveClock.isRunning()) {
+            stopLiveClock();
+        }
+    }
+
+    private void stopLiveClock() {
+        mLiveClock.stop();
+        mState = new StatusBarState.Builder(mState).setClockTime(mPreferences.getState().getClockTime()).build();
+    }
+
+    @Override
+    public void onClockTick(String time) {
+        mState = new StatusBarState.Builder(mState).setClockTime(time).build();
+        mMailbox.post(mState);
+    }
+
+    private void handleMessage(Message msg) {
+        switch (msg.what) {
+            case StatusBarMessages.MSG_APPLY_DELTA:
+                mState = StatusBarMessages.applyDelta(mState, msg.getData());
+                break;
+            case StatusBarMessages.MSG_RESET:
+                mState = mPreferences.getState();
+                break;
+            default:
+                Log.w(TAG, "Unknown message " + msg.what);
+                return;
+        }
+
+        Runnable onDrawn = null;
+        if (msg.replyTo != null) {
+            onDrawn = new DrawnReply(msg.replyTo, msg.arg1, mState);
+        }
+        mMailbox.post(mState, onDrawn);
+    }
+
+    private void handleCommands(Bundle extras) {
+        if (extras == null) {
+            return;
+        }
+
+        List<StatusBarCommand> commands = new ArrayList<>();
+        try {
+            for (String key : extras.keySet()) {
+                StatusBarCommand command = StatusBarCommand.parse(key, String.valueOf(extras.get(key)));
+                // the extras have no order, a reset has to come before the rest
+                if (command.getType() == StatusBarCommand.TYPE_RESET) {
+                    commands.add(0, command);
+                } else {
+                    commands.add(command);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Ignoring commands " + extras, e);
+            return;
+        }
+        mState = applyCommands(mState, commands);
+        mMailbox.post(mState);
+    }
+
+    /**
+     * Applies the commands in order, the preferences are not written.
+     */
+    private StatusBarState applyCommands(StatusBarState state, List<StatusBarCommand> commands) {
+        for (StatusBarCommand command : commands) {
+            if (command.getType() == StatusBarCommand.TYPE_RESET) {
+                state = mPreferences.getState();
+            } else {
+                state = StatusBarMessages.applyCommand(state, command, mPreferences.is24HourFormat());
+            }
+        }
+        return state;
+    }
+
+    private static int getIntExtra(Intent intent, String name) {
+        // am broadcast sends -e extras as strings and --ei as ints
+        Object value = intent.getExtras() != null ? intent.getExtras().get(name) : null;
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Ignoring " + name + "=" + value);
+            return 0;
+        }
+    }
+
+    private void loadScenario(final String path, final int framesPerSecond) {
+        if (path == null) {
+            Log.w(TAG, "No scenario path");
+            return;
+        }
+
+        final Handler handler = new Handler();
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final StatusBarScenario scenario;
+                try {
+                    Reader reader = new FileReader(path);
+                    try {
+                        scenario = StatusBarScenario.read(reader);
+                    } finally {
+                        reader.close();
+                    }
+                } catch (IOException | IllegalArgumentException e) {
+                    Log.w(TAG, "Unable to load scenario " + path, e);
+                    return;
+                }
+
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (sIsRunning) {
+                            playScenario(scenario, framesPerSecond);
+                        }
+                    }
+                });
+            }
+        }, "ScenarioLoader").start();
+    }
+
+    private void playScenario(StatusBarScenario scenario, int framesPerSecond) {
+        mScenarioPlayer.stop();
+        // before the first step, the steps build on each other
+        if (mLiveClock.isRunning()) {
+            stopLiveClock();
+        }
+        mScenarioPlayer.play(scenario, framesPerSecond);
+    }
+
+    @Override
+    public StatusBarState postScenarioStep(List<StatusBarCommand> commands, Runnable onDrawn) {
+        mState = applyCommands(mState, commands);
+        mMailbox.post(mState, onDrawn);
+        return mState;
+    }
+
+    @Override
+    public StatusBarState getAppliedState() {
+        return mAppliedState;
+    }
+
+    @Override
+    public void onScenarioFinished() {
+        updateLiveClock();
+    }
+
+    @Override
+    public void applyStatusBarState(StatusBarState state) {
+        for (int i = mOverlays.size() - 1; i >= 0; i--) {
+            if (!apply(mOverlays.valueAt(i), state)) {
+                mOverlays.removeAt(i);
+            }
+        }
+        mAppliedState = state;
+    }
+
+    /**
+     * @return false if a secondary display would not take the window, the default display has to
+     */
+    private boolean apply(StatusBarOverlay overlay, StatusBarState state) {
+        try {
+            overlay.apply(state, mPreferences.isFlatRenderingEnabled(), mPreferences.isBakedRenderingEnabled(), mLiveClock.isRunning());
+            return true;
+        } catch (RuntimeException e) {
+            if (overlay.getDisplayId() == Display.DEFAULT_DISPLAY) {
+                throw e;
+            }
+            // e.g. a private virtual display owned by another app
+            Log.w(TAG, "Display " + overlay.getDisplayId() + " refused the overlay", e);
+            overlay.remove();
+            return false;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private void startTrackingDisplays() {
+        mDisplayManager = (DisplayManager) getSystemService(Context.DISPLAY_SERVICE);
+        mDisplayListener = new DisplayManager.DisplayListener() {
+            @Override
+            public void onDisplayAdded(int displayId) {
+                updateOverlays();
+            }
+
+            @Override
+            public void onDisplayRemoved(int displayId) {
+                updateOverlays();
+            }
+
+            @Override
+            public void onDisplayChanged(int displayId) {
+            }
+        };
+        mDisplayManager.registerDisplayListener(mDisplayListener, null);
+        updateOverlays();
+    }
+
+    /**
+     * Adds an overlay to each display that should have one and drops the ones whose display has
+     * gone, without touching the others.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private void updateOverlays() {
+        boolean isOtherDisplaysEnabled = mPreferences.isOtherDisplaysEnabled();
+        for (int i = mOverlays.size() - 1; i >= 0; i--) {
+            int displayId = mOverlays.keyAt(i);
+            if (displayId != Display.DEFAULT_DISPLAY && (!isOtherDisplaysEnabled || mDisplayManager.getDisplay(displayId) == null)) {
+                mOverlays.valueAt(i).remove();
+                mOverlays.removeAt(i);
+            }
+        }
+        if (!isOtherDisplaysEnabled) {
+            return;
+        }
+
+        for (Display display : mDisplayManager.getDisplays()) {
+            int displayId = display.getDisplayId();
+            if (mOverlays.get(displayId) != null) {
+                continue;
+            }
+            StatusBarOverlay overlay = new StatusBarOverlay(createDisplayContext(display), displayId);
+            // shown straight away, otherwise it waits for the next state change
+            if (mAppliedState == null || apply(overlay, mAppliedState)) {
+                mOverlays.put(displayId, overlay);
+            }
+        }
     }
 
     @Override
     public void onDestroy() {
         sIsRunning = false;
 
-        if (mStatusBarView != null) {
-            mWindowManager.removeView(mStatusBarView);
-            mStatusBarView = null;
+        mPreferences.setListener(null);
+        unregisterReceiver(mCommandReceiver);
+        mScenarioPlayer.stop();
+        mLiveClock.stop();
+        mMailbox.cancel();
+
+        if (mDisplayManager != null) {
+            stopTrackingDisplays();
+        }
+        for (int i = 0; i < mOverlays.size(); i++) {
+            mOverlays.valueAt(i).remove();
         }
+        mOverlays.clear();
         removeNotification();
 
         super.onDestroy();
@@ -97,35 +433,118 @@ public class CleanStatusBarService extends Service {
 
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return mMessenger.getBinder();
     }
 
-    public String getClockTime() {
-        return getSharedPrefs().getString(getString(R.string.key_clock_time), TimePreference.DEFAULT_TIME_VALUE);
-    }
+    /**
+     * One key=value line per value in a fixed order, for tools scraping
+     * adb shell dumpsys activity service CleanStatusBarService. Latencies are in microseconds.
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        dumpState(writer, "state.applied", mAppliedState);
+        dumpState(writer, "state.requested", mState);
 
-    public int getBackgroundColour() {
-        return getSharedPrefs().getInt(getString(R.string.key_background_colour), 0);
-    }
+        StringBuilder displays = new StringBuilder();
+        for (int i = 0; i < mOverlays.size(); i++) {
+            if (i > 0) {
+                displays.append(',');
+            }
+            displays.append(mOverlays.keyAt(i));
+        }
+        writer.println("displays=" + displays);
 
-    private boolean isKitKatGradientEnabled() {
-        return getSharedPrefs().getBoolean(getString(R.string.key_kit_kat_gradient), false);
+        // the default display's overlay
+        StatusBarOverlay overlay = mOverlays.get(Display.DEFAULT_DISPLAY);
+        StatusBarRenderer renderer = overlay == null ? null : overlay.getRenderer();
+        writer.println("renderer=" + (renderer == null ? "none" : renderer.getClass().getSimpleName()));
+        writer.println("renderer.applied=" + (renderer == null ? 0 : renderer.getAppliedUpdateCount()));
+        writer.println("renderer.skipped=" + (renderer == null ? 0 : renderer.getSkippedUpdateCount()));
+        writer.println("mailbox.posted=" + mMailbox.getPostedCount());
+        writer.println("mailbox.applied=" + mMailbox.getAppliedCount());
+        writer.println("mailbox.coalesced=" + mMailbox.getCoalescedCount());
+
+        TintedDrawableCache drawables = TintedDrawableCache.getInstance();
+        dumpCache(writer, "cache.drawable", drawables.size(), drawables.getHitCount(), drawables.getMissCount());
+        TypefaceRegistry typefaces = TypefaceRegistry.getInstance();
+        dumpCache(writer, "cache.typeface", typefaces.size(), typefaces.getHitCount(), typefaces.getMissCount());
+
+        WindowManager.LayoutParams params = renderer == null ? null : (WindowManager.LayoutParams) ((View) renderer).getLayoutParams();
+        if (params == null) {
+            writer.println("window=none");
+        } else {
+            writer.println("window.width=" + params.width);
+            writer.println("window.height=" + params.height);
+            writer.println("window.type=" + params.type);
+            writer.println("window.flags=0x" + Integer.toHexString(params.flags));
+            writer.println("window.format=" + params.format);
+            writer.println("window.gravity=0x" + Integer.toHexString(params.gravity));
+        }
+
+        writer.println("scenario=" + (mScenarioPlayer.isPlaying() ? "playing" : "idle"));
+        writer.println("scenario.posted=" + mScenarioPlayer.getPostedCount());
+        writer.println("scenario.drawn=" + mScenarioPlayer.getDrawnCount());
+        writer.println("scenario.superseded=" + mScenarioPlayer.getSupersededCount());
+        writer.println("scenario.stepsPerSecond=" + String.format(Locale.US, "%.1f", mScenarioPlayer.getStepsPerSecond()));
+
+        ApplyLatencyStats latencies = ApplyLatencyStats.getInstance();
+        for (int stage = 0; stage < ApplyLatencyStats.STAGE_COUNT; stage++) {
+            String prefix = "latency." + ApplyLatencyStats.getStageName(stage);
+            LatencyHistogram histogram = latencies.getHistogram(stage);
+            writer.println(prefix + ".count=" + histogram.getCount());
+            writer.println(prefix + ".p50=" + histogram.getValueAtPercentile(50));
+            writer.println(prefix + ".p90=" + histogram.getValueAtPercentile(90));
+            writer.println(prefix + ".p99=" + histogram.getValueAtPercentile(99));
+            writer.println(prefix + ".max=" + histogram.getMax());
+
+            StringBuilder recent = new StringBuilder();
+            for (long value : latencies.getRecent(stage)) {
+                if (recent.length() > 0) {
+                    recent.append(',');
+                }
+                recent.append(value);
+            }
+            writer.println(prefix + ".recent=" + recent);
+        }
+        writer.flush();
     }
 
-    private boolean showGpsIcon() {
-        return getSharedPrefs().getBoolean(getString(R.string.key_gps), false);
+    private static void dumpState(PrintWriter writer, String prefix, StatusBarState state) {
+        if (state == null) {
+            writer.println(prefix + "=none");
+            return;
+        }
+        writer.println(prefix + ".apiLevel=" + state.getApiLevel());
+        writer.println(prefix + ".kitKatGradient=" + state.isKitKatGradientEnabled());
+        writer.println(prefix + ".backgroundColour=#" + String.format(Locale.US, "%08x", state.getBackgroundColour()));
+        writer.println(prefix + ".clockTime=" + state.getClockTime());
+        writer.println(prefix + ".wifi=" + state.shouldShowWifi());
+        writer.println(prefix + ".networkIcon=" + state.getNetworkIcon());
+        writer.println(prefix + ".gps=" + state.shouldShowGps());
     }
 
-    private boolean showWifiIcon() {
-        return getSharedPrefs().getBoolean(getString(R.string.key_signal_wifi), false);
+    private static void dumpCache(PrintWriter writer, String prefix, int size, int hits, int misses) {
+        int lookups = hits + misses;
+        writer.println(prefix + ".size=" + size);
+        writer.println(prefix + ".hits=" + hits);
+        writer.println(prefix + ".misses=" + misses);
+        writer.println(prefix + ".hitRate=" + String.format(Locale.US, "%.3f", lookups == 0 ? 0f : (float) hits / lookups));
     }
 
-    private int show3gIcon() {
-        return Integer.parseInt(getSharedPrefs().getString(getString(R.string.key_signal_3g), "-1"));
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private void stopTrackingDisplays() {
+        mDisplayManager.unregisterDisplayListener(mDisplayListener);
+        mDisplayManager = null;
     }
 
-    private SharedPreferences getSharedPrefs() {
-        return PreferenceManager.getDefaultSharedPreferences(this);
+    private void onFirstFrameDrawn(long startedAtNanos) {
+        ApplyLatencyStats.getInstance().record(ApplyLatencyStats.STAGE_FIRST_FRAME, startedAtNanos, System.nanoTime());
+
+        // building the notification is left until the overlay is up
+        if (!mIsNotificationShown) {
+            showNotification();
+            mIsNotificationShown = true;
+        }
     }
 
     private void showNotification() {
@@ -146,7 +565,65 @@ public class CleanStatusBarService extends Service {
         mNotificationManager.cancel(NOTIFICATION_ID);
     }
 
+    /**
+     * @return the number of start commands and preference changes folded into a later apply
+     */
+    public int getCoalescedCommandCount() {
+        return mMailbox.getCoalescedCount();
+    }
+
     public static boolean isRunning() {
     	return sIsRunning;
     }
+
+    private static class IncomingHandler extends Handler {
+        private final WeakReference<CleanStatusBarService> mService;
+
+        IncomingHandler(CleanStatusBarService service) {
+            mService = new WeakReference<>(service);
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            CleanStatusBarService service = mService.get();
+            if (service != null) {
+                service.handleMessage(msg);
+            }
+        }
+    }
+
+    private class DrawnReply implements Runnable {
+        private final Messenger mReplyTo;
+        private final int mSequence;
+        private final StatusBarState mState;
+
+        DrawnReply(Messenger replyTo, int sequence, StatusBarState state) {
+            mReplyTo = replyTo;
+            mSequence = sequence;
+            mState = state;
+        }
+
+        @Override
+        public void run() {
+            int drawn = mState.equals(mAppliedState) ? StatusBarMessages.DRAWN_EXACT : StatusBarMessages.DRAWN_SUPERSEDED;
+            try {
+                mReplyTo.send(Message.obtain(null, StatusBarMessages.MSG_STATE_DRAWN, mSequence, drawn));
+            } catch (RemoteException e) {
+                Log.w(TAG, "Client went away before state " + mSequence + " was drawn");
+            }
+        }
+    }
+
+    private class FirstFrame implements Runnable {
+        private final long mStartedAtNanos;
+
+        FirstFrame(long startedAtNanos) {
+            mStartedAtNanos = startedAtNanos;
+        }
+
+        @Override
+        public void run() {
+            onFirstFrameDrawn(mStartedAtNanos);
+        }
+    }
 }
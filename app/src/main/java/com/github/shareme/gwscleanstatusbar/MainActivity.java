@@ -21,20 +21,22 @@ import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
 import android.os.Bundle;
 import android.preference.CheckBoxPreference;
 import android.preference.ListPreference;
 import android.preference.Preference;
 import android.preference.PreferenceCategory;
 import android.preference.PreferenceFragment;
-import android.text.TextUtils;
 import android.view.Gravity;
 import android.view.ViewGroup;
 import android.widget.CompoundButton;
 import android.widget.Switch;
 
+import com.github.shareme.gwscleanstatusbar.core.ProfileIndex;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfile;
 import com.github.shareme.gwscleanstatusbar.prefs.TimePreference;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarPreferences;
 
 public class MainActivity extends Activity {
     @Override
@@ -54,6 +56,7 @@ public class MainActivity extends Activity {
             public void onCheckedChanged(CompoundButton compoundButton, boolean b) {
                 Intent service = new Intent(MainActivity.this, CleanStatusBarService.class);
                 if (b) {
+                    service.putExtra(CleanStatusBarService.EXTRA_REQUESTED_AT_NANOS, System.nanoTime());
                     startService(service);
                 } else {
                     stopService(service);
@@ -74,12 +77,7 @@ public class MainActivity extends Activity {
     }
 
     public static int getAPIValue(Context context, SharedPreferences prefs) {
-        String apiValue = prefs.getString(context.getString(R.string.key_api_level), "");
-        if (!TextUtils.isEmpty(apiValue)) {
-            return Integer.valueOf(apiValue);
-        }
-
-        return Build.VERSION_CODES.LOLLIPOP;
+        return StatusBarPreferences.parseApiLevel(prefs.getString(context.getString(R.string.key_api_level), ""));
     }
 
     public static class SettingsFragment extends PreferenceFragment implements SharedPreferences.OnSharedPreferenceChangeListener {
@@ -90,6 +88,7 @@ public class MainActivity extends Activity {
 
             addPreferencesFromResource(R.xml.prefs);
 
+            initApiLevelEntries();
             initSummary();
             updateEnableKitKatGradientOption(getPreferenceManager().getSharedPreferences());
             updateTimePreference();
@@ -115,6 +114,7 @@ public class MainActivity extends Activity {
 
             if (CleanStatusBarService.isRunning()) {
                 Intent service = new Intent(getActivity(), CleanStatusBarService.class);
+                service.putExtra(CleanStatusBarService.EXTRA_REQUESTED_AT_NANOS, System.nanoTime());
                 getActivity().startService(service);
             }
 
@@ -135,8 +135,28 @@ public class MainActivity extends Activity {
         }
 
         private void updateEnableKitKatGradientOption(SharedPreferences sharedPreferences) {
-            boolean isKitKat = getAPIValue(getActivity(), sharedPreferences) == Build.VERSION_CODES.KITKAT;
-            findPreference(getString(R.string.key_kit_kat_gradient)).setEnabled(isKitKat);
+            StatusBarProfile profile = StatusBarConfig.getProfileTable(getResources(), getActivity().getAssets())
+                    .get(getAPIValue(getActivity(), sharedPreferences));
+            findPreference(getString(R.string.key_kit_kat_gradient)).setEnabled(profile.hasGradient());
+        }
+
+        /**
+         * Lists every bundled profile, newest first. Only the labels are read, not the profiles.
+         */
+        private void initApiLevelEntries() {
+            ProfileIndex profiles = StatusBarConfig.getProfileIndex(getActivity().getAssets());
+            int count = profiles.getCount();
+            CharSequence[] entries = new CharSequence[count];
+            CharSequence[] entryValues = new CharSequence[count];
+            for (int i = 0; i < count; i++) {
+                int position = count - 1 - i;
+                entries[i] = profiles.getLabel(position);
+                entryValues[i] = String.valueOf(profiles.getApiLevel(position));
+            }
+
+            ListPreference pref = (ListPreference) findPreference(getString(R.string.key_api_level));
+            pref.setEntries(entries);
+            pref.setEntryValues(entryValues);
         }
 
         protected void initSummary() {
@@ -179,8 +199,7 @@ public class MainActivity extends Activity {
                 }
             } else if (pref instanceof TimePreference) {
                 if (pref.getKey().equals(getString(R.string.key_clock_time))) {
-                    String time = getPreferenceManager().getSharedPreferences().getString(getString(R.string.key_clock_time), TimePreference.DEFAULT_TIME_VALUE);
-                    pref.setSummary(time);
+                    pref.setSummary(((TimePreference) pref).getDisplayTime());
                 }
             }
         }
@@ -0,0 +1,211 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarScenario;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+import java.util.List;
+
+/**
+ * Steps the service through a {@link StatusBarScenario} and reports each step once a frame
+ * showing it has been drawn, in the log and as a {@link StatusBarMessages#ACTION_SCENARIO_STEP_DRAWN}
+ * broadcast.
+ *
+ * Stepped playback posts the next step from the drawn callback of the one before, so every step
+ * is on screen for exactly one drawn frame and none can be lost. Fixed rate playback posts a step
+ * every 1/fps seconds whatever has been drawn, for video capture, and a step that gets replaced
+ * before it is drawn is reported as superseded.
+ *
+ * Main thread only.
+ */
+final class ScenarioPlayer {
+    private static final String TAG = "ScenarioPlayer";
+
+    interface Host {
+        /**
+         * Applies the commands to the current state and posts it.
+         *
+         * @return the posted state
+         */
+        StatusBarState postScenarioStep(List<StatusBarCommand> commands, Runnable onDrawn);
+
+        StatusBarState getAppliedState();
+
+        void onScenarioFinished();
+    }
+
+    private final Context mContext;
+    private final Host mHost;
+    private final Handler mHandler = new Handler();
+
+    private StatusBarScenario mScenario;
+    private int mFramesPerSecond;
+    // bumped on every play and stop so callbacks of an earlier run do nothing
+    private int mGeneration;
+    private int mPostedCount;
+    private int mDrawnCount;
+    private int mSupersededCount;
+    private long mStartedAtMillis;
+    private long mFinishedAtMillis;
+
+    ScenarioPlayer(Context context, Host host) {
+        mContext = context;
+        mHost = host;
+    }
+
+    /**
+     * Stops anything playing and starts the scenario from its first step.
+     *
+     * @param framesPerSecond steps per second for fixed rate playback, 0 steps as fast as frames
+     *                        are drawn
+     */
+    void play(StatusBarScenario scenario, int framesPerSecond) {
+        stop();
+        if (scenario.getStepCount() == 0) {
+            return;
+        }
+
+        mScenario = scenario;
+        mFramesPerSecond = framesPerSecond;
+        mPostedCount = 0;
+        mDrawnCount = 0;
+        mSupersededCount = 0;
+        mStartedAtMillis = SystemClock.uptimeMillis();
+        mFinishedAtMillis = 0;
+        Log.i(TAG, "playing " + scenario.getStepCount() + " steps" + (framesPerSecond > 0 ? " at " + framesPerSecond + "fps" : ""));
+
+        if (framesPerSecond > 0) {
+            scheduleFixedRateStep();
+        } else {
+            postStep();
+        }
+    }
+
+    void stop() {
+        mGeneration++;
+        mHandler.removeCallbacksAndMessages(null);
+        if (mScenario != null) {
+            if (mFinishedAtMillis == 0) {
+                mFinishedAtMillis = SystemClock.uptimeMillis();
+            }
+            mScenario = null;
+            mHost.onScenarioFinished();
+        }
+    }
+
+    boolean isPlaying() {
+        return mScenario != null;
+    }
+
+    int getPostedCount() {
+        return mPostedCount;
+    }
+
+    int getDrawnCount() {
+        return mDrawnCount;
+    }
+
+    int getSupersededCount() {
+        return mSupersededCount;
+    }
+
+    /**
+     * @return drawn steps per second of the current or last run
+     */
+    float getStepsPerSecond() {
+        long end = mFinishedAtMillis != 0 ? mFinishedAtMillis : SystemClock.uptimeMillis();
+        long elapsed = end - mStartedAtMillis;
+        return elapsed > 0 ? mDrawnCount * 1000f / elapsed : 0f;
+    }
+
+    private void postStep() {
+        int index = mPostedCount++;
+        StepDrawn onDrawn = new StepDrawn(mGeneration, index);
+        onDrawn.mState = mHost.postScenarioStep(mScenario.getStep(index), onDrawn);
+    }
+
+    private void scheduleFixedRateStep() {
+        final int generation = mGeneration;
+        long at = mStartedAtMillis + mPostedCount * 1000L / mFramesPerSecond;
+        mHandler.postAtTime(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    return;
+                }
+                postStep();
+                if (mPostedCount < mScenario.getStepCount()) {
+                    scheduleFixedRateStep();
+                }
+            }
+        }, at);
+    }
+
+    private void onStepDrawn(int index, StatusBarState state) {
+        boolean isSuperseded = !state.equals(mHost.getAppliedState());
+        if (isSuperseded && mFramesPerSecond == 0) {
+            // something else changed the status bar in the same frame, show the step again
+            mPostedCount--;
+            postStep();
+            return;
+        }
+
+        if (isSuperseded) {
+            mSupersededCount++;
+        } else {
+            mDrawnCount++;
+        }
+        Log.i(TAG, "step " + index + (isSuperseded ? " superseded" : " drawn"));
+        mContext.sendBroadcast(new Intent(StatusBarMessages.ACTION_SCENARIO_STEP_DRAWN)
+                .putExtra(StatusBarMessages.EXTRA_STEP, index)
+                .putExtra(StatusBarMessages.EXTRA_SUPERSEDED, isSuperseded));
+
+        if (index == mScenario.getStepCount() - 1) {
+            mFinishedAtMillis = SystemClock.uptimeMillis();
+            Log.i(TAG, "finished " + mDrawnCount + " steps, " + mSupersededCount + " superseded, "
+                    + getStepsPerSecond() + " steps/s");
+            stop();
+        } else if (mFramesPerSecond == 0) {
+            postStep();
+        }
+    }
+
+    private class StepDrawn implements Runnable {
+        private final int mStepGeneration;
+        private final int mIndex;
+        private StatusBarState mState;
+
+        StepDrawn(int generation, int index) {
+            mStepGeneration = generation;
+            mIndex = index;
+        }
+
+        @Override
+        public void run() {
+            if (mStepGeneration == mGeneration) {
+                onStepDrawn(mIndex, mState);
+            }
+        }
+    }
+}
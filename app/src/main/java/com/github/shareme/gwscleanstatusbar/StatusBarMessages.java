@@ -0,0 +1,147 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar;
+
+import android.os.Bundle;
+
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+import com.github.shareme.gwscleanstatusbar.core.TimeCodec;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+/**
+ * Messenger protocol of the binder returned by {@link CleanStatusBarService#onBind}.
+ *
+ * A client sends {@link #MSG_APPLY_DELTA} with a sequence number in arg1 and only the keys it
+ * wants to change in the data bundle. If the message has a replyTo the service answers with
+ * {@link #MSG_STATE_DRAWN} carrying the same arg1 once a frame showing the delta is on screen,
+ * arg2 is {@link #DRAWN_SUPERSEDED} if a newer delta got folded into the same frame.
+ *
+ * Scripts can send {@link #ACTION_COMMAND} broadcasts instead, each extra a {@link StatusBarCommand}
+ * applied to the in memory state, preferences untouched. Senders need the DUMP permission, which
+ * the shell has:
+ *
+ * <pre>
+ * adb shell am broadcast -a com.github.shareme.gwscleanstatusbar.action.COMMAND -e clock 1200 -e network lte -e wifi show
+ * </pre>
+ *
+ * {@link #ACTION_PLAY_SCENARIO} plays a {@link com.github.shareme.gwscleanstatusbar.core.StatusBarScenario}
+ * file named by {@link #EXTRA_PATH}, optionally at a fixed {@link #EXTRA_FPS}, announcing each step
+ * with {@link #ACTION_SCENARIO_STEP_DRAWN}:
+ *
+ * <pre>
+ * adb shell am broadcast -a com.github.shareme.gwscleanstatusbar.action.PLAY_SCENARIO -e path /data/local/tmp/shots.txt
+ * </pre>
+ */
+public final class StatusBarMessages {
+    public static final String ACTION_BIND = "com.github.shareme.gwscleanstatusbar.action.BIND";
+    public static final String ACTION_COMMAND = "com.github.shareme.gwscleanstatusbar.action.COMMAND";
+    public static final String ACTION_PLAY_SCENARIO = "com.github.shareme.gwscleanstatusbar.action.PLAY_SCENARIO";
+    public static final String ACTION_STOP_SCENARIO = "com.github.shareme.gwscleanstatusbar.action.STOP_SCENARIO";
+    public static final String ACTION_SCENARIO_STEP_DRAWN = "com.github.shareme.gwscleanstatusbar.action.SCENARIO_STEP_DRAWN";
+
+    public static final String EXTRA_PATH = "path";
+    /**
+     * Steps per second, without it every step is shown for one drawn frame
+     */
+    public static final String EXTRA_FPS = "fps";
+    public static final String EXTRA_STEP = "step";
+    public static final String EXTRA_SUPERSEDED = "superseded";
+
+    public static final int MSG_APPLY_DELTA = 1;
+    public static final int MSG_STATE_DRAWN = 2;
+    /**
+     * Drops every delta and goes back to what the preferences say, acknowledged like a delta.
+     */
+    public static final int MSG_RESET = 3;
+
+    public static final int DRAWN_EXACT = 0;
+    public static final int DRAWN_SUPERSEDED = 1;
+
+    public static final String KEY_API_LEVEL = "api_level";
+    public static final String KEY_KITKAT_GRADIENT = "kitkat_gradient";
+    public static final String KEY_BACKGROUND_COLOUR = "background_colour";
+    public static final String KEY_CLOCK_TIME = "clock_time";
+    public static final String KEY_SHOW_WIFI = "show_wifi";
+    public static final String KEY_NETWORK_ICON = "network_icon";
+    public static final String KEY_SHOW_GPS = "show_gps";
+
+    private StatusBarMessages() {
+    }
+
+    /**
+     * @return the state with every key present in the delta applied, the same instance if the delta is empty
+     */
+    public static StatusBarState applyDelta(StatusBarState state, Bundle delta) {
+        if (delta == null || delta.isEmpty()) {
+            return state;
+        }
+
+        StatusBarState.Builder builder = new StatusBarState.Builder(state);
+        if (delta.containsKey(KEY_API_LEVEL)) {
+            builder.setApiLevel(delta.getInt(KEY_API_LEVEL));
+        }
+        if (delta.containsKey(KEY_KITKAT_GRADIENT)) {
+            builder.setKitKatGradientEnabled(delta.getBoolean(KEY_KITKAT_GRADIENT));
+        }
+        if (delta.containsKey(KEY_BACKGROUND_COLOUR)) {
+            builder.setBackgroundColour(delta.getInt(KEY_BACKGROUND_COLOUR));
+        }
+        if (delta.containsKey(KEY_CLOCK_TIME)) {
+            builder.setClockTime(delta.getString(KEY_CLOCK_TIME));
+        }
+        if (delta.containsKey(KEY_SHOW_WIFI)) {
+            builder.setShowWifi(delta.getBoolean(KEY_SHOW_WIFI));
+        }
+        if (delta.containsKey(KEY_NETWORK_ICON)) {
+            builder.setNetworkIcon(delta.getInt(KEY_NETWORK_ICON));
+        }
+        if (delta.containsKey(KEY_SHOW_GPS)) {
+            builder.setShowGps(delta.getBoolean(KEY_SHOW_GPS));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param is24HourFormat how to show a clock command, the same as the clock preference is shown
+     * @return the state with the command applied, reset is up to the caller
+     */
+    public static StatusBarState applyCommand(StatusBarState state, StatusBarCommand command, boolean is24HourFormat) {
+        StatusBarState.Builder builder = new StatusBarState.Builder(state);
+        switch (command.getType()) {
+            case StatusBarCommand.TYPE_CLOCK:
+                builder.setClockTime(TimeCodec.toString(command.getValue(), is24HourFormat));
+                break;
+            case StatusBarCommand.TYPE_NETWORK:
+                builder.setNetworkIcon(command.getValue());
+                break;
+            case StatusBarCommand.TYPE_WIFI:
+                builder.setShowWifi(command.isShown());
+                break;
+            case StatusBarCommand.TYPE_GPS:
+                builder.setShowGps(command.isShown());
+                break;
+            case StatusBarCommand.TYPE_BACKGROUND:
+                builder.setBackgroundColour(command.getValue());
+                break;
+            case StatusBarCommand.TYPE_API:
+                builder.setApiLevel(command.getValue());
+                break;
+            default:
+                return state;
+        }
+        return builder.build();
+    }
+}
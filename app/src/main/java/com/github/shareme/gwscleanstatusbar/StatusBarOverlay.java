@@ -0,0 +1,103 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar;
+
+import android.content.Context;
+import android.graphics.PixelFormat;
+import android.view.Gravity;
+import android.view.View;
+import android.view.WindowManager;
+
+import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+import com.github.shareme.gwscleanstatusbar.widgets.FlatStatusBarView;
+import com.github.shareme.gwscleanstatusbar.widgets.StatusBarRenderer;
+import com.github.shareme.gwscleanstatusbar.widgets.StatusBarView;
+
+/**
+ * The overlay window on one display. The context belongs to that display so the window manager,
+ * resources and status bar height are the display's own, the profiles, fonts and tinted icons
+ * behind {@link StatusBarConfig} are shared with every other overlay.
+ */
+final class StatusBarOverlay {
+    private final int mDisplayId;
+    private final Context mContext;
+    private final WindowManager mWindowManager;
+
+    private StatusBarRenderer mRenderer;
+
+    StatusBarOverlay(Context context, int displayId) {
+        mDisplayId = displayId;
+        mContext = context;
+        mWindowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+    }
+
+    int getDisplayId() {
+        return mDisplayId;
+    }
+
+    /**
+     * @return the renderer in the window, null until the first apply
+     */
+    StatusBarRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    /**
+     * Adds the window on the first call, or when the renderer type changes.
+     */
+    void apply(StatusBarState state, boolean isFlatRenderingEnabled, boolean isBakedRenderingEnabled, boolean isClockWidthReserved) {
+        if (mRenderer != null && (mRenderer instanceof FlatStatusBarView) != isFlatRenderingEnabled) {
+            remove();
+        }
+        if (mRenderer == null) {
+            StatusBarConfig config = new StatusBarConfig(state.getApiLevel(), state.isKitKatGradientEnabled(),
+                    mContext.getResources(), mContext.getAssets());
+            StatusBarRenderer renderer;
+            if (isFlatRenderingEnabled) {
+                renderer = new FlatStatusBarView(mContext);
+            } else {
+                renderer = new StatusBarView(mContext);
+            }
+            mWindowManager.addView((View) renderer, getWindowManagerParams(config));
+            mRenderer = renderer;
+        }
+        mRenderer.setClockWidthReserved(isClockWidthReserved);
+        if (mRenderer instanceof StatusBarView) {
+            ((StatusBarView) mRenderer).setBaked(isBakedRenderingEnabled);
+        }
+        mRenderer.setStatusBarState(state);
+    }
+
+    void remove() {
+        if (mRenderer != null) {
+            mWindowManager.removeView((View) mRenderer);
+            mRenderer = null;
+        }
+    }
+
+    private static WindowManager.LayoutParams getWindowManagerParams(StatusBarConfig config) {
+        WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                PixelFormat.TRANSLUCENT); // must be translucent to support KitKat gradient
+        params.gravity = Gravity.TOP;
+        params.height = config.getStatusBarHeight();
+        return params;
+    }
+}
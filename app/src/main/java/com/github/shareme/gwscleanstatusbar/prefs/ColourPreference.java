@@ -13,11 +13,12 @@ import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Bundle;
 import android.preference.Preference;
-import android.support.annotation.NonNull;
+import android.preference.PreferenceManager;
 import android.text.Editable;
 import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.util.AttributeSet;
+import android.util.LruCache;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -26,22 +27,28 @@ import android.view.inputmethod.InputMethodManager;
 import android.widget.AdapterView;
 import android.widget.BaseAdapter;
 import android.widget.EditText;
-import android.widget.HeaderViewListAdapter;
 import android.widget.ImageView;
 import android.widget.ListView;
 import android.widget.TextView;
 
 import com.github.shareme.gwscleanstatusbar.R;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.github.shareme.gwscleanstatusbar.core.NamedColour;
+import com.github.shareme.gwscleanstatusbar.core.PaletteIndex;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 @SuppressWarnings("unused")
 // Adapted from DashClock: https://code.google.com/p/dashclock/source/browse/main/src/main/java/com/google/android/apps/dashclock/configuration/ColorPreference.java
-public class ColourPreference extends Preference {
-    private static ArrayList<Colour> mColours = new ArrayList<>();
+public class ColourPreference extends Preference implements PaletteRepository.Listener {
+    private static final int MAX_CACHED_SWATCHES = 256;
+
+    // swatches shown in the picker, a recycled row usually gets a colour it has drawn before
+    private static final LruCache<Integer, Drawable.ConstantState> sSwatches = new LruCache<>(MAX_CACHED_SWATCHES);
+    private static float sSwatchDensity;
+
+    private PaletteRepository mPalette;
 
     public ColourPreference(Context context) {
         this(context, null);
@@ -61,6 +68,19 @@ public class ColourPreference extends Preference {
         return getKey() + "colours";
     }
 
+    PaletteRepository getPalette() {
+        if (mPalette == null) {
+            String[] defaultColourNames = getContext().getResources().getStringArray(R.array.default_colour_choices);
+            String[] defaultColourValues = getContext().getResources().getStringArray(R.array.default_colour_choice_values);
+            List<NamedColour> defaultColours = new ArrayList<>(defaultColourValues.length);
+            for (int i = 0; i < defaultColourValues.length; i++) {
+                defaultColours.add(new NamedColour(defaultColourNames[i], Color.parseColor(defaultColourValues[i])));
+            }
+            mPalette = PaletteRepository.getInstance(getSharedPreferences(), getUserColoursKey(), Collections.unmodifiableList(defaultColours));
+        }
+        return mPalette;
+    }
+
     @Override
     protected void onClick() {
         super.onClick();
@@ -78,29 +98,40 @@ public class ColourPreference extends Preference {
     protected void onBindView(View view) {
         super.onBindView(view);
 
-        String json = getSharedPreferences().getString(getUserColoursKey(), "");
-        mColours = new Gson().fromJson(json, new TypeToken<ArrayList<Colour>>() {}.getType());
-
-        if (mColours == null) {
-            mColours = new ArrayList<>();
-
-            String[] defaultColourNames = getContext().getResources().getStringArray(R.array.default_colour_choices);
-            String[] defaultColourValues = getContext().getResources().getStringArray(R.array.default_colour_choice_values);
-            for (int i = 0; i < defaultColourValues.length; i++) {
-                mColours.add(new Colour(defaultColourNames[i], Color.parseColor(defaultColourValues[i])));
-            }
-        }
-        Collections.sort(mColours);
-
         int value = getPersistedInt(0);
         if (value == 0) {
-            value = mColours.get(0).mColourValue;
-            setValue(value);
+            List<NamedColour> colours = getPalette().getSnapshot();
+            if (colours == null) {
+                // bound again once the palette is in memory
+                getPalette().addListener(this);
+                getPalette().load();
+                return;
+            }
+            if (!colours.isEmpty()) {
+                value = colours.get(0).getValue();
+                setValue(value);
+            }
         }
 
         setColourValue((ImageView) view.findViewById(R.id.colour_view), value);
     }
 
+    @Override
+    public void onPaletteChanged(List<NamedColour> colours) {
+        // only listening until the first load, the repository outlives this preference
+        getPalette().removeListener(this);
+        if (getPersistedInt(0) == 0) {
+            notifyChanged();
+        }
+    }
+
+    @Override
+    protected void onAttachedToHierarchy(PreferenceManager preferenceManager) {
+        super.onAttachedToHierarchy(preferenceManager);
+
+        getPalette().load();
+    }
+
     @Override
     protected void onSetInitialValue(boolean restoreValue, Object defaultValue) {
         setValue(restoreValue ? getPersistedInt(0) : (Integer) defaultValue);
@@ -148,6 +179,15 @@ public class ColourPreference extends Preference {
             tryBindLists();
         }
 
+        @Override
+        public void onDestroy() {
+            super.onDestroy();
+
+            if (mAdapter != null && mPreference != null) {
+                mPreference.getPalette().removeListener(mAdapter);
+            }
+        }
+
         @Override
         public void onAttach(Activity activity) {
             super.onAttach(activity);
@@ -157,18 +197,19 @@ public class ColourPreference extends Preference {
 
         @Override
         public Dialog onCreateDialog(Bundle savedInstanceState) {
-            mListView = new ListView(getActivity());
+            @SuppressLint("InflateParams") View root = LayoutInflater.from(getActivity()).inflate(R.layout.dialog_colour_list, null);
+            mListView = (ListView) root.findViewById(R.id.colour_list);
             mListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
                 @Override
                 public void onItemClick(AdapterView<?> listView, View view, int position, long itemId) {
-                    Colour item = mAdapter.getItem(position);
-                    mPreference.setValue(item.mColourValue);
+                    NamedColour item = (NamedColour) listView.getItemAtPosition(position);
+                    mPreference.setValue(item.getValue());
                     dismiss();
                 }
             });
             mListView.setOnItemLongClickListener(new AdapterView.OnItemLongClickListener() {
                 @Override
-                public boolean onItemLongClick(AdapterView<?> adapterView, View view, final int position, long l) {
+                public boolean onItemLongClick(final AdapterView<?> adapterView, View view, final int position, long l) {
                     new AlertDialog.Builder(getActivity())
                             .setTitle(R.string.title_delete_colour)
                             .setMessage(R.string.message_delete_colour)
@@ -176,9 +217,7 @@ public class ColourPreference extends Preference {
                             .setPositiveButton(R.string.yes, new DialogInterface.OnClickListener() {
                                 @Override
                                 public void onClick(DialogInterface dialogInterface, int i) {
-                                    mColours.remove(position);
-                                    ((BaseAdapter) ((HeaderViewListAdapter) mListView.getAdapter()).getWrappedAdapter()).notifyDataSetChanged();
-                                    mPreference.getSharedPreferences().edit().putString(mPreference.getUserColoursKey(), new Gson().toJson(mColours)).apply();
+                                    mPreference.getPalette().remove((NamedColour) adapterView.getItemAtPosition(position));
                                 }
                             })
                             .show();
@@ -189,10 +228,28 @@ public class ColourPreference extends Preference {
             footerView.setOnClickListener(this);
             mListView.addFooterView(footerView);
 
+            EditText filterView = (EditText) root.findViewById(R.id.edit_colour_filter);
+            filterView.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence charSequence, int i, int i2, int i3) {
+                }
+
+                @Override
+                public void onTextChanged(CharSequence charSequence, int i, int i2, int i3) {
+                }
+
+                @Override
+                public void afterTextChanged(Editable editable) {
+                    if (mAdapter != null) {
+                        mAdapter.setFilter(editable.toString());
+                    }
+                }
+            });
+
             tryBindLists();
 
             return new AlertDialog.Builder(getActivity())
-                    .setView(mListView)
+                    .setView(root)
                     .create();
         }
 
@@ -203,6 +260,10 @@ public class ColourPreference extends Preference {
 
             if (isAdded() && mAdapter == null) {
                 mAdapter = new ColorPreferenceListAdapter(getActivity());
+                PaletteRepository palette = mPreference.getPalette();
+                palette.addListener(mAdapter);
+                mAdapter.setColours(palette.getSnapshot());
+                palette.load();
             }
 
             if (mAdapter != null && mListView != null) {
@@ -293,10 +354,7 @@ public class ColourPreference extends Preference {
                             final String colourValue = editValue.getText().toString();
 
                             int colour = getColor(colourValue);
-                            mColours.add(new Colour(colorName, colour));
-                            Collections.sort(mColours);
-                            ((BaseAdapter) ((HeaderViewListAdapter) mListView.getAdapter()).getWrappedAdapter()).notifyDataSetChanged();
-                            mPreference.getSharedPreferences().edit().putString(mPreference.getUserColoursKey(), new Gson().toJson(mColours)).apply();
+                            mPreference.getPalette().add(new NamedColour(colorName, colour));
                             hideKeyboard(getActivity(), editValue);
                             mAlertDialog = null;
                         }
@@ -320,22 +378,53 @@ public class ColourPreference extends Preference {
         in.hideSoftInputFromWindow(view.getWindowToken(), InputMethodManager.HIDE_NOT_ALWAYS);
     }
 
-    static class ColorPreferenceListAdapter extends BaseAdapter {
+    static class ColorPreferenceListAdapter extends BaseAdapter implements PaletteRepository.Listener {
         private final Resources mResources;
         private final LayoutInflater mLayoutInflater;
+        private List<NamedColour> mAllColours = Collections.emptyList();
+        private List<NamedColour> mColours = Collections.emptyList();
+        private String mFilter = "";
 
         public ColorPreferenceListAdapter(Context context) {
             mLayoutInflater = LayoutInflater.from(context);
             mResources = context.getResources();
         }
 
+        /**
+         * @param colours a sorted palette snapshot
+         */
+        void setColours(List<NamedColour> colours) {
+            mAllColours = colours == null ? Collections.<NamedColour>emptyList() : colours;
+            applyFilter();
+        }
+
+        /**
+         * Shows the colours whose name starts with the filter, or whose value does if it starts with a '#'.
+         */
+        void setFilter(String filter) {
+            if (!mFilter.equals(filter)) {
+                mFilter = filter;
+                applyFilter();
+            }
+        }
+
+        private void applyFilter() {
+            mColours = PaletteIndex.filter(mAllColours, mFilter);
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onPaletteChanged(List<NamedColour> colours) {
+            setColours(colours);
+        }
+
         @Override
         public int getCount() {
             return mColours.size();
         }
 
         @Override
-        public Colour getItem(int position) {
+        public NamedColour getItem(int position) {
             return mColours.get(position);
         }
 
@@ -361,9 +450,9 @@ public class ColourPreference extends Preference {
                 holder = (ViewHolder) v.getTag();
             }
 
-            Colour colour = getItem(position);
-            holder.colourName.setText(colour.mColourName);
-            setColourValue(holder.colour, colour.mColourValue);
+            NamedColour colour = getItem(position);
+            holder.colourName.setText(colour.getName());
+            setColourValue(holder.colour, colour.getValue());
 
             return v;
         }
@@ -379,38 +468,35 @@ public class ColourPreference extends Preference {
     }
 
     private static void setColourValue(ImageView imageView, int colour) {
-        Drawable currentDrawable = imageView.getDrawable();
-        GradientDrawable colorChoiceDrawable;
-        if (currentDrawable != null && currentDrawable instanceof GradientDrawable) {
-            // reuse drawable
-            colorChoiceDrawable = (GradientDrawable) currentDrawable;
-        } else {
-            colorChoiceDrawable = new GradientDrawable();
-            colorChoiceDrawable.setShape(GradientDrawable.OVAL);
+        Integer key = colour;
+        if (key.equals(imageView.getTag(R.id.colour_view)) && imageView.getDrawable() != null) {
+            return;
         }
 
-        // Set stroke to darker version of color
-        float scale = 0.80f;
-        int stroke = Color.rgb((int) (Color.red(colour) * scale), (int) (Color.green(colour) * scale), (int) (Color.blue(colour) * scale));
-
-        colorChoiceDrawable.setColor(colour);
-        colorChoiceDrawable.setStroke((int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, imageView.getResources().getDisplayMetrics()), stroke);
-        imageView.setImageDrawable(colorChoiceDrawable);
-    }
+        float density = imageView.getResources().getDisplayMetrics().density;
+        if (sSwatchDensity != density) {
+            sSwatches.evictAll();
+            sSwatchDensity = density;
+        }
 
-    static class Colour implements Comparable<Colour> {
-        int mColourValue;
-        String mColourName;
+        Drawable.ConstantState swatch = sSwatches.get(key);
+        if (swatch == null) {
+            GradientDrawable colorChoiceDrawable = new GradientDrawable();
+            colorChoiceDrawable.setShape(GradientDrawable.OVAL);
 
-        public Colour(String colourName, int colourValue) {
-            mColourName = colourName;
-            mColourValue = colourValue;
-        }
+            // Set stroke to darker version of color
+            float scale = 0.80f;
+            int stroke = Color.rgb((int) (Color.red(colour) * scale), (int) (Color.green(colour) * scale), (int) (Color.blue(colour) * scale));
 
-        @Override
-        public int compareTo(@NonNull Colour colour) {
-            return mColourName.compareTo(colour.mColourName);
+            colorChoiceDrawable.setColor(colour);
+            colorChoiceDrawable.setStroke((int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, imageView.getResources().getDisplayMetrics()), stroke);
+            swatch = colorChoiceDrawable.getConstantState();
+            sSwatches.put(key, swatch);
         }
+        // drawables from the same state share it, none of them is changed after this
+        imageView.setImageDrawable(swatch.newDrawable(imageView.getResources()));
+        imageView.setTag(R.id.colour_view, key);
     }
 
+
 }
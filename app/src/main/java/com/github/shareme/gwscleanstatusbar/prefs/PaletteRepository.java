@@ -0,0 +1,231 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.prefs;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.github.shareme.gwscleanstatusbar.core.NamedColour;
+import com.github.shareme.gwscleanstatusbar.core.PaletteCodec;
+import com.github.shareme.gwscleanstatusbar.core.PaletteIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * In memory copy of the user palette behind a {@link ColourPreference}. It is decoded once on a
+ * background thread, after that readers get an immutable sorted snapshot and every edit
+ * publishes a new snapshot and writes it back in the background. Edits made before the first
+ * load completes are queued and applied on top of it.
+ *
+ * Edits and listener callbacks happen on the main thread, {@link #getSnapshot()} can be read
+ * from anywhere.
+ */
+class PaletteRepository {
+    private static final String TAG = "PaletteRepository";
+
+    interface Listener {
+        void onPaletteChanged(List<NamedColour> colours);
+    }
+
+    private static final Map<String, PaletteRepository> sRepositories = new HashMap<>();
+
+    // a single thread keeps the writes in order
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "PaletteRepository");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    private final SharedPreferences mSharedPreferences;
+    private final String mKey;
+    private final List<NamedColour> mDefaultColours;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<>();
+    // edits waiting for the first load
+    private final List<Runnable> mPendingEdits = new ArrayList<>();
+
+    private volatile List<NamedColour> mSnapshot;
+    private boolean mIsLoading;
+
+    private PaletteRepository(SharedPreferences sharedPreferences, String key, List<NamedColour> defaultColours) {
+        mSharedPreferences = sharedPreferences;
+        mKey = key;
+        mDefaultColours = defaultColours;
+    }
+
+    /**
+     * @param key the SharedPreferences key the encoded palette is stored under
+     * @param defaultColours used until the user has saved a palette of their own
+     */
+    static synchronized PaletteRepository getInstance(SharedPreferences sharedPreferences, String key, List<NamedColour> defaultColours) {
+        PaletteRepository repository = sRepositories.get(key);
+        if (repository == null) {
+            repository = new PaletteRepository(sharedPreferences, key, defaultColours);
+            sRepositories.put(key, repository);
+        }
+        return repository;
+    }
+
+    /**
+     * @return the sorted, unmodifiable palette or null if it has not been loaded yet
+     */
+    List<NamedColour> getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Adding a listener that is already added does nothing.
+     */
+    void addListener(Listener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Starts the background load unless the palette is loaded or loading, listeners hear about it.
+     */
+    void load() {
+        if (mSnapshot != null || mIsLoading) {
+            return;
+        }
+        mIsLoading = true;
+
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<NamedColour> colours = read();
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mIsLoading = false;
+                        if (mSnapshot == null) {
+                            publish(colours);
+                        }
+                        applyPendingEdits();
+                    }
+                });
+            }
+        });
+    }
+
+    void add(final NamedColour colour) {
+        if (mSnapshot == null) {
+            queueEdit(new Runnable() {
+                @Override
+                public void run() {
+                    add(colour);
+                }
+            });
+            return;
+        }
+        publishAndPersist(PaletteIndex.insert(mSnapshot, colour));
+    }
+
+    void remove(final NamedColour colour) {
+        if (mSnapshot == null) {
+            queueEdit(new Runnable() {
+                @Override
+                public void run() {
+                    remove(colour);
+                }
+            });
+            return;
+        }
+        List<NamedColour> colours = new ArrayList<>(mSnapshot);
+        if (colours.remove(colour)) {
+            publishAndPersist(colours);
+        }
+    }
+
+    private void queueEdit(Runnable edit) {
+        mPendingEdits.add(edit);
+        load();
+    }
+
+    private void applyPendingEdits() {
+        List<Runnable> edits = new ArrayList<>(mPendingEdits);
+        mPendingEdits.clear();
+        for (Runnable edit : edits) {
+            edit.run();
+        }
+    }
+
+    private List<NamedColour> read() {
+        String stored = mSharedPreferences.getString(mKey, "");
+        List<NamedColour> colours = null;
+        try {
+            colours = PaletteCodec.decode(stored);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Unreadable palette " + mKey + ", using the default colours", e);
+        }
+        if (colours == null) {
+            colours = new ArrayList<>(mDefaultColours);
+        }
+        Collections.sort(colours);
+
+        if (PaletteCodec.isLegacy(stored)) {
+            // one off migration from the old Gson JSON
+            write(colours);
+        }
+        return colours;
+    }
+
+    private void write(List<NamedColour> colours) {
+        mSharedPreferences.edit().putString(mKey, PaletteCodec.encode(colours)).apply();
+    }
+
+    private void publish(List<NamedColour> colours) {
+        List<NamedColour> snapshot = Collections.unmodifiableList(colours);
+        mSnapshot = snapshot;
+        for (Listener listener : mListeners) {
+            listener.onPaletteChanged(snapshot);
+        }
+    }
+
+    private void publishAndPersist(List<NamedColour> colours) {
+        publish(colours);
+
+        final List<NamedColour> snapshot = mSnapshot;
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // a later edit has already queued a newer write
+                if (snapshot != mSnapshot) {
+                    return;
+                }
+                write(snapshot);
+            }
+        });
+    }
+}
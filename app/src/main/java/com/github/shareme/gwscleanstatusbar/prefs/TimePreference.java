@@ -24,14 +24,15 @@ import android.view.View;
 import android.widget.TimePicker;
 
 import com.github.shareme.gwscleanstatusbar.R;
+import com.github.shareme.gwscleanstatusbar.core.TimeCodec;
 
 
 // Adapted from https://github.com/commonsguy/cw-lunchlist/blob/master/19-Alarm/LunchList/src/apt/tutorial/TimePreference.java
 public class TimePreference extends DialogPreference {
     public static final String DEFAULT_TIME_VALUE = "12:00";
 
-    private int mLastHour = 0;
-    private int mLastMinute = 0;
+    private int mLastMinuteOfDay = 0;
+    private final char[] mFormatBuffer = new char[TimeCodec.MAX_FORMATTED_LENGTH];
 
     private TimePicker mTimePicker = null;
 
@@ -61,8 +62,8 @@ public class TimePreference extends DialogPreference {
     protected void onBindDialogView(View v) {
         super.onBindDialogView(v);
 
-        mTimePicker.setCurrentHour(mLastHour);
-        mTimePicker.setCurrentMinute(mLastMinute);
+        mTimePicker.setCurrentHour(TimeCodec.getHourOfDay(mLastMinuteOfDay));
+        mTimePicker.setCurrentMinute(TimeCodec.getMinute(mLastMinuteOfDay));
     }
 
     @Override
@@ -76,36 +77,29 @@ public class TimePreference extends DialogPreference {
 
     private void updateTime() {
         if (mTimePicker != null) {
-            mLastHour = mTimePicker.getCurrentHour();
-            mLastMinute = mTimePicker.getCurrentMinute();
+            mLastMinuteOfDay = TimeCodec.pack(mTimePicker.getCurrentHour(), mTimePicker.getCurrentMinute());
         } else {
-            String time = getPersistedString(DEFAULT_TIME_VALUE);
-            mLastHour = getHour(time);
-            mLastMinute = getMinute(time);
+            mLastMinuteOfDay = parseTime(getPersistedString(DEFAULT_TIME_VALUE));
         }
 
-        String hourValue = String.valueOf(mLastHour);
-        if (mIs24HourFormat) {
-            hourValue = toTimeDigits(mLastHour);
-        } else {
-            if (mLastHour > 12) {
-                hourValue = String.valueOf(mLastHour - 12);
-            }
-        }
-
-        String time = hourValue + ":" + toTimeDigits(mLastMinute);
+        // persisted as 24 hour "HH:MM" text, 12 hour text loses the half of the day
+        int length = TimeCodec.format(mLastMinuteOfDay, true, mFormatBuffer, 0);
+        String time = new String(mFormatBuffer, 0, length);
 
         if (callChangeListener(time)) {
             persistString(time);
         }
     }
 
-    private String toTimeDigits(int i) {
-        String digit = String.valueOf(i);
-        if (i < 10) {
-            digit = "0" + digit;
-        }
-        return digit;
+    public int getMinuteOfDay() {
+        return mLastMinuteOfDay;
+    }
+
+    /**
+     * @return the time as the status bar shows it, in the format last set
+     */
+    public String getDisplayTime() {
+        return TimeCodec.toString(mLastMinuteOfDay, mIs24HourFormat);
     }
 
     @Override
@@ -127,17 +121,10 @@ public class TimePreference extends DialogPreference {
             time = defaultValue.toString();
         }
 
-        mLastHour = getHour(time);
-        mLastMinute = getMinute(time);
-    }
-
-    private static int getHour(String time) {
-        String[] pieces = time.split(":");
-        return Integer.parseInt(pieces[0]);
+        mLastMinuteOfDay = parseTime(time);
     }
 
-    private static int getMinute(String time) {
-        String[] pieces = time.split(":");
-        return Integer.parseInt(pieces[1]);
+    private static int parseTime(String time) {
+        return TimeCodec.parse(time, TimeCodec.DEFAULT_MINUTE_OF_DAY);
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import com.github.shareme.gwscleanstatusbar.core.LatencyHistogram;
+
+/**
+ * Process wide latency histograms, in microseconds, for each stage between a status bar change
+ * being asked for and the frame after the one that draws it:
+ *
+ * <ul>
+ * <li>{@link #STAGE_INTENT} preference write in the settings screen to onStartCommand</li>
+ * <li>{@link #STAGE_QUEUE} mailbox post to the frame that applies it</li>
+ * <li>{@link #STAGE_APPLY} applying the state, config lookup and view updates included</li>
+ * <li>{@link #STAGE_DRAW} end of the apply to the start of the following frame</li>
+ * <li>{@link #STAGE_TOTAL} request to that following frame</li>
+ * <li>{@link #STAGE_FIRST_FRAME} service start, or the switch that asked for it, to the first
+ * drawn overlay frame</li>
+ * </ul>
+ *
+ * When several requests fold into one apply the oldest of them is measured. The last
+ * {@link #RECENT_COUNT} values of each stage are kept as well.
+ */
+public class ApplyLatencyStats {
+    public static final int STAGE_INTENT = 0;
+    public static final int STAGE_QUEUE = 1;
+    public static final int STAGE_APPLY = 2;
+    public static final int STAGE_DRAW = 3;
+    public static final int STAGE_TOTAL = 4;
+    public static final int STAGE_FIRST_FRAME = 5;
+    public static final int STAGE_COUNT = 6;
+
+    public static final int RECENT_COUNT = 16;
+
+    private static final String[] STAGE_NAMES = {"intent", "queue", "apply", "draw", "total", "first_frame"};
+
+    private static final ApplyLatencyStats sInstance = new ApplyLatencyStats();
+
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[STAGE_COUNT];
+    private final long[][] mRecent = new long[STAGE_COUNT][RECENT_COUNT];
+    private final long[] mRecordedCounts = new long[STAGE_COUNT];
+
+    ApplyLatencyStats() {
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public static ApplyLatencyStats getInstance() {
+        return sInstance;
+    }
+
+    public static String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    /**
+     * @param startNanos and endNanos from System.nanoTime() or the Choreographer frame time
+     */
+    public void record(int stage, long startNanos, long endNanos) {
+        long micros = (endNanos - startNanos) / 1000;
+        mHistograms[stage].record(micros);
+        synchronized (mRecent) {
+            mRecent[stage][(int) (mRecordedCounts[stage] % RECENT_COUNT)] = micros;
+            mRecordedCounts[stage]++;
+        }
+    }
+
+    /**
+     * @return up to {@link #RECENT_COUNT} of the latest values of the stage, oldest first
+     */
+    public long[] getRecent(int stage) {
+        synchronized (mRecent) {
+            long recorded = mRecordedCounts[stage];
+            int count = (int) Math.min(recorded, RECENT_COUNT);
+            long[] recent = new long[count];
+            for (int i = 0; i < count; i++) {
+                recent[i] = mRecent[stage][(int) ((recorded - count + i) % RECENT_COUNT)];
+            }
+            return recent;
+        }
+    }
+
+    public LatencyHistogram getHistogram(int stage) {
+        return mHistograms[stage];
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+        synchronized (mRecent) {
+            for (int i = 0; i < STAGE_COUNT; i++) {
+                mRecordedCounts[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+/**
+ * The digits and the colon of the clock rasterised once into a strip for a given
+ * (typeface, text size, colour). Drawing a time copies glyph cells out of the strip, so an
+ * update needs no text layout and allocates nothing.
+ *
+ * Atlases are shared process wide, drawing uses scratch rects so it must stay on the main thread.
+ */
+public class ClockGlyphAtlas {
+    public static final String GLYPHS = "0123456789:";
+
+    private static final int MAX_ENTRIES = 4;
+    // evicted bitmaps are not recycled, a view may still draw from them until its next profile change
+    private static final LruCache<Key, ClockGlyphAtlas> sAtlases = new LruCache<>(MAX_ENTRIES);
+
+    private final Bitmap mBitmap;
+    private final float[] mAdvances = new float[GLYPHS.length()];
+    private final int[] mCellLefts = new int[GLYPHS.length()];
+    private final int[] mCellWidths = new int[GLYPHS.length()];
+    // from the pen position to the left of the cell, negative when the glyph overhangs to the left
+    private final int[] mCellOffsets = new int[GLYPHS.length()];
+    private final int mAscent;
+    private final int mHeight;
+
+    private final Rect mSrc = new Rect();
+    private final Rect mDst = new Rect();
+
+    private ClockGlyphAtlas(Typeface typeface, float textSize, int colour) {
+        TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTypeface(typeface);
+        paint.setTextSize(textSize);
+        paint.setColor(colour);
+
+        Paint.FontMetricsInt fontMetrics = paint.getFontMetricsInt();
+        mAscent = fontMetrics.top;
+        mHeight = fontMetrics.bottom - fontMetrics.top;
+
+        paint.getTextWidths(GLYPHS, mAdvances);
+        Rect bounds = new Rect();
+        int stripWidth = 0;
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            paint.getTextBounds(GLYPHS, i, i + 1, bounds);
+            int left = Math.min(0, bounds.left);
+            int right = Math.max((int) Math.ceil(mAdvances[i]), bounds.right);
+            mCellOffsets[i] = left;
+            mCellLefts[i] = stripWidth;
+            mCellWidths[i] = right - left;
+            stripWidth += mCellWidths[i];
+        }
+
+        mBitmap = Bitmap.createBitmap(Math.max(1, stripWidth), Math.max(1, mHeight), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < GLYPHS.length(); i++) {
+            canvas.drawText(GLYPHS, i, i + 1, mCellLefts[i] - mCellOffsets[i], -mAscent, paint);
+        }
+    }
+
+    /**
+     * @param textSize in pixels
+     */
+    public static ClockGlyphAtlas get(Typeface typeface, float textSize, int colour) {
+        Key key = new Key(typeface, textSize, colour);
+        ClockGlyphAtlas atlas = sAtlases.get(key);
+        if (atlas == null) {
+            atlas = new ClockGlyphAtlas(typeface, textSize, colour);
+            sAtlases.put(key, atlas);
+        }
+        return atlas;
+    }
+
+    public static int size() {
+        return sAtlases.size();
+    }
+
+    /**
+     * @return true if every character of the text is in the atlas
+     */
+    public boolean canDraw(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (GLYPHS.indexOf(text.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the advance of the text, only valid if {@link #canDraw(CharSequence)}
+     */
+    public float measure(CharSequence text) {
+        float width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += mAdvances[GLYPHS.indexOf(text.charAt(i))];
+        }
+        return width;
+    }
+
+    /**
+     * @return the largest advance of a digit, for reserving room for any time
+     */
+    public float getWidestDigitAdvance() {
+        float widest = 0;
+        for (int i = 0; i < 10; i++) {
+            widest = Math.max(widest, mAdvances[i]);
+        }
+        return widest;
+    }
+
+    public float getColonAdvance() {
+        return mAdvances[GLYPHS.length() - 1];
+    }
+
+    /**
+     * @return top of the line relative to the baseline, the same as FontMetricsInt.top
+     */
+    public int getAscent() {
+        return mAscent;
+    }
+
+    /**
+     * @return line height including font padding, the height of a single line TextView
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Draws the text with the top of its line at top, glyphs are snapped to whole pixels.
+     */
+    public void draw(Canvas canvas, CharSequence text, float x, int top) {
+        float pen = x;
+        for (int i = 0; i < text.length(); i++) {
+            int glyph = GLYPHS.indexOf(text.charAt(i));
+            int left = Math.round(pen) + mCellOffsets[glyph];
+            mSrc.set(mCellLefts[glyph], 0, mCellLefts[glyph] + mCellWidths[glyph], mHeight);
+            mDst.set(left, top, left + mCellWidths[glyph], top + mHeight);
+            canvas.drawBitmap(mBitmap, mSrc, mDst, null);
+            pen += mAdvances[glyph];
+        }
+    }
+
+    private static final class Key {
+        private final Typeface mTypeface;
+        private final float mTextSize;
+        private final int mColour;
+
+        Key(Typeface typeface, float textSize, int colour) {
+            mTypeface = typeface;
+            mTextSize = textSize;
+            mColour = colour;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mTypeface == other.mTypeface && mTextSize == other.mTextSize && mColour == other.mColour;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(mTypeface);
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + mColour;
+            return result;
+        }
+    }
+}
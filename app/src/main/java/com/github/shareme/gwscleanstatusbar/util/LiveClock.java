@@ -0,0 +1,108 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import com.github.shareme.gwscleanstatusbar.core.TimeCodec;
+
+import java.util.Calendar;
+
+/**
+ * Wall clock for screen recordings. Only wakes on ACTION_TIME_TICK, which the system sends on
+ * each minute boundary, and when the time or time zone is changed by hand.
+ */
+public class LiveClock extends BroadcastReceiver {
+
+    public interface Listener {
+        void onClockTick(String time);
+    }
+
+    private final Context mContext;
+    private final Listener mListener;
+
+    private boolean mIsRunning;
+    private boolean mIs24HourFormat;
+    private String mTime;
+    private int mMinuteOfDay = TimeCodec.INVALID;
+    private final char[] mFormatBuffer = new char[TimeCodec.MAX_FORMATTED_LENGTH];
+
+    public LiveClock(Context context, Listener listener) {
+        mContext = context;
+        mListener = listener;
+    }
+
+    /**
+     * Starts ticking, or just switches format if already running. The listener is called
+     * straight away with the current time.
+     */
+    public void start(boolean is24HourFormat) {
+        if (mIs24HourFormat != is24HourFormat) {
+            mIs24HourFormat = is24HourFormat;
+            mMinuteOfDay = TimeCodec.INVALID;
+        }
+        if (!mIsRunning) {
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_TIME_TICK);
+            filter.addAction(Intent.ACTION_TIME_CHANGED);
+            filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+            mContext.registerReceiver(this, filter);
+            mIsRunning = true;
+        }
+        tick();
+    }
+
+    public void stop() {
+        if (mIsRunning) {
+            mContext.unregisterReceiver(this);
+            mIsRunning = false;
+            mTime = null;
+            mMinuteOfDay = TimeCodec.INVALID;
+        }
+    }
+
+    public boolean isRunning() {
+        return mIsRunning;
+    }
+
+    /**
+     * @return the last time handed to the listener
+     */
+    public String getTime() {
+        return mTime;
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (mIsRunning) {
+            tick();
+        }
+    }
+
+    private void tick() {
+        Calendar now = Calendar.getInstance();
+        int minuteOfDay = TimeCodec.pack(now.get(Calendar.HOUR_OF_DAY), now.get(Calendar.MINUTE));
+        if (minuteOfDay == mMinuteOfDay) {
+            return;
+        }
+        mMinuteOfDay = minuteOfDay;
+        mTime = new String(mFormatBuffer, 0, TimeCodec.format(minuteOfDay, mIs24HourFormat, mFormatBuffer, 0));
+        mListener.onClockTick(mTime);
+    }
+}
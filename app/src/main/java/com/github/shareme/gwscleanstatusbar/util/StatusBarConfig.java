@@ -16,24 +16,73 @@
  */
 package com.github.shareme.gwscleanstatusbar.util;
 
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.content.res.Resources;
-import android.graphics.PorterDuff;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
-import android.os.Build;
+import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 import android.view.View;
 import android.widget.LinearLayout;
 
 import com.github.shareme.gwscleanstatusbar.R;
+import com.github.shareme.gwscleanstatusbar.core.ProfileIndex;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarIcons;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfile;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfileTable;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
 
+
+/**
+ * Android side of a {@link StatusBarProfile}, it turns the profile's icon ids into tinted
+ * drawables and its font into a Typeface.
+ */
 public class StatusBarConfig {
     private static final String RESOURCE_NAME_STATUS_BAR_HEIGHT = "status_bar_height";
+    public static final String FONT_ROBOTO_MEDIUM = "fonts/Roboto-Medium.ttf";
+
+    /**
+     * Compiled from profiles/status_bar_profiles.txt by the build
+     */
+    public static final String PROFILES_ASSET = "status_bar_profiles.bin";
+
+    // indexed by the StatusBarIcons ids
+    private static final int[] ICON_DRAWABLES = new int[StatusBarIcons.COUNT];
+
+    static {
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_OFF] = R.drawable.network_icon_off;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_G] = R.drawable.network_icon_g;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_E] = R.drawable.network_icon_e;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_3G] = R.drawable.network_icon_3g;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_H] = R.drawable.network_icon_h;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_LTE] = R.drawable.network_icon_lte;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_ROAM] = R.drawable.network_icon_roam;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_OFF_L] = R.drawable.network_icon_off_l;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_G_L] = R.drawable.network_icon_g_l;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_E_L] = R.drawable.network_icon_e_l;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_3G_L] = R.drawable.network_icon_3g_l;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_H_L] = R.drawable.network_icon_h_l;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_LTE_L] = R.drawable.network_icon_lte_l;
+        ICON_DRAWABLES[StatusBarIcons.NETWORK_ROAM_L] = R.drawable.network_icon_roam_l;
+        ICON_DRAWABLES[StatusBarIcons.WIFI_FULL] = R.drawable.stat_sys_wifi_signal_4_fully;
+        ICON_DRAWABLES[StatusBarIcons.WIFI_FULL_L] = R.drawable.stat_sys_wifi_signal_4_fully_l;
+        ICON_DRAWABLES[StatusBarIcons.GPS_16] = R.drawable.stat_sys_gps_on_16;
+        ICON_DRAWABLES[StatusBarIcons.GPS_19] = R.drawable.stat_sys_gps_on_19;
+    }
+
+    private static ProfileIndex sProfileIndex;
+    // one per display density, shared by every overlay at that density
+    private static final Map<Float, StatusBarProfileTable> sProfileTables = new HashMap<>();
 
     private final int mApiLevel;
     private final boolean mIsKitKatGradientEnabled;
+    private final StatusBarProfile mProfile;
 
     private final Resources mResources;
     private final AssetManager mAssetManager;
@@ -43,6 +92,63 @@ public class StatusBarConfig {
         mIsKitKatGradientEnabled = isKitKatGradientEnabled;
         mResources = r;
         mAssetManager = a;
+        mProfile = getProfileTable(r, a).get(apiLevel);
+    }
+
+    /**
+     * @return the bundled profiles, mapped on first use
+     */
+    public static synchronized ProfileIndex getProfileIndex(AssetManager assets) {
+        if (sProfileIndex == null) {
+            sProfileIndex = loadProfileIndex(assets);
+        }
+        return sProfileIndex;
+    }
+
+    private static ProfileIndex loadProfileIndex(AssetManager assets) {
+        try {
+            // the asset is stored uncompressed so it can be mapped rather than copied
+            AssetFileDescriptor descriptor = assets.openFd(PROFILES_ASSET);
+            try {
+                FileInputStream in = descriptor.createInputStream();
+                try {
+                    // the mapping stays valid once the stream and descriptor are closed
+                    FileChannel channel = in.getChannel();
+                    return new ProfileIndex(channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+                } finally {
+                    in.close();
+                }
+            } finally {
+                descriptor.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + PROFILES_ASSET, e);
+        }
+    }
+
+    @VisibleForTesting
+    static synchronized void setProfileTable(StatusBarProfileTable table) {
+        sProfileTables.clear();
+        if (table != null) {
+            sProfileTables.put(table.getDensity(), table);
+        }
+    }
+
+    /**
+     * @return the profiles at the density of the display the resources belong to
+     */
+    public static synchronized StatusBarProfileTable getProfileTable(Resources res, AssetManager assets) {
+        float density = res.getDisplayMetrics().density;
+        StatusBarProfileTable table = sProfileTables.get(density);
+        if (table == null) {
+            table = new StatusBarProfileTable(getProfileIndex(assets), density);
+            sProfileTables.put(density, table);
+        }
+        return table;
+    }
+
+    public StatusBarProfile getProfile() {
+        return mProfile;
     }
 
     public int getStatusBarHeight() {
@@ -50,36 +156,17 @@ public class StatusBarConfig {
     }
 
     public boolean shouldDrawGradient() {
-        return mIsKitKatGradientEnabled && mApiLevel == Build.VERSION_CODES.KITKAT;
+        return mIsKitKatGradientEnabled && mProfile.hasGradient();
     }
 
-    @SuppressWarnings("deprecation")
     public int getForegroundColour() {
-        int colourResId = R.color.android_jellybean_status_bar;
-
-        switch (mApiLevel) {
-            case Build.VERSION_CODES.KITKAT:
-                if (shouldDrawGradient()) {
-                    colourResId = R.color.android_kitkat_status_bar_gradient;
-                } else {
-                    colourResId = R.color.android_kitkat_status_bar_default;
-                }
-                break;
-            case Build.VERSION_CODES.LOLLIPOP:
-                colourResId = android.R.color.white;
-                break;
-        }
-        //TODO: getColor is depreciated
-        return mResources.getColor(colourResId);
-    }
-
-    private boolean isAndroidL() {
-        return mApiLevel == Build.VERSION_CODES.LOLLIPOP;
+        return mProfile.getForegroundColour(shouldDrawGradient());
     }
 
     public Typeface getFont() {
-        if (isAndroidL()) {
-            return Typeface.createFromAsset(mAssetManager, "fonts/Roboto-Medium.ttf");
+        String fontAsset = mProfile.getFontAsset();
+        if (fontAsset != null) {
+            return TypefaceRegistry.getInstance().get(mAssetManager, fontAsset);
         }
 
         return null;
@@ -95,154 +182,56 @@ public class StatusBarConfig {
     }
 
     public float getFontSize() {
-        if (isAndroidL()) {
-            return 14f;
-        }
-        return 16.0f;
+        return mProfile.getFontSize();
     }
 
     public Drawable getNetworkIconDrawable(int icon) {
-        if (isAndroidL()) {
-            switch (icon) {
-                case 1:
-                    icon = R.drawable.network_icon_g_l;
-                    break;
-
-                case 2:
-                    icon = R.drawable.network_icon_e_l;
-                    break;
-
-                case 3:
-                    icon = R.drawable.network_icon_3g_l;
-                    break;
-
-                case 4:
-                    icon = R.drawable.network_icon_h_l;
-                    break;
-
-                case 5:
-                    icon = R.drawable.network_icon_lte_l;
-                    break;
-
-                case 99:
-                    icon = R.drawable.network_icon_roam_l;
-                    break;
-
-                default:
-                    icon = R.drawable.network_icon_off_l;
-            }
-            return getTintedDrawable(mResources, icon, getForegroundColour());
-        } else {
-            switch (icon) {
-                case 1:
-                    icon = R.drawable.network_icon_g;
-                    break;
-
-                case 2:
-                    icon = R.drawable.network_icon_e;
-                    break;
-
-                case 3:
-                    icon = R.drawable.network_icon_3g;
-                    break;
-
-                case 4:
-                    icon = R.drawable.network_icon_h;
-                    break;
-
-                case 5:
-                    icon = R.drawable.network_icon_lte;
-                    break;
-
-                case 99:
-                    icon = R.drawable.network_icon_roam;
-                    break;
-
-                default:
-                    icon = R.drawable.network_icon_off;
-            }
-            return getTintedDrawable(mResources, icon, getForegroundColour());
-        }
+        return getTintedDrawable(mResources, ICON_DRAWABLES[mProfile.getNetworkIcon(icon)], getForegroundColour());
     }
 
     public Drawable getGPSDrawable() {
-        int icon;
-
-        if (mApiLevel >= Build.VERSION_CODES.KITKAT) {
-            icon = R.drawable.stat_sys_gps_on_19;
-        } else {
-            icon = R.drawable.stat_sys_gps_on_16;
-        }
-        return getTintedDrawable(mResources, icon, getForegroundColour());
+        return getTintedDrawable(mResources, ICON_DRAWABLES[mProfile.getGpsIcon()], getForegroundColour());
     }
 
     public Drawable getWifiDrawable() {
-        int icon;
-
-        if (isAndroidL()) {
-            icon = R.drawable.stat_sys_wifi_signal_4_fully_l;
-        } else {
-            icon = R.drawable.stat_sys_wifi_signal_4_fully;
-        }
-        return getTintedDrawable(mResources, icon, getForegroundColour());
+        return getTintedDrawable(mResources, ICON_DRAWABLES[mProfile.getWifiIcon()], getForegroundColour());
     }
 
-    @SuppressWarnings("deprecation")
     public Drawable getTintedDrawable(Resources res, int drawableResId, int colour) {
-        //TODO: getDrawable is depreciated
-        Drawable drawable = res.getDrawable(drawableResId);
-        if (drawable != null) {
-            drawable.setColorFilter(colour, PorterDuff.Mode.SRC_IN);
-        }else{
+        Drawable drawable = TintedDrawableCache.getInstance().get(res, drawableResId, colour, mApiLevel);
+        if (drawable == null) {
             Log.e("me", "drawable is null oh oh");
         }
         return drawable;
     }
 
     public int getRightPadding() {
-        if (isAndroidL()) {
-            return dpToPx(8);
-        }
-        return dpToPx(6);
+        return mProfile.getRightPadding();
     }
 
-    private int dpToPx(float dp) {
-        return (int) (dp * mResources.getDisplayMetrics().density);
+    public int getBatteryViewWidth() {
+        return mProfile.getBatteryWidth();
     }
 
-    private int getBatteryViewWidth() {
-        if (isAndroidL()) {
-            return dpToPx(10);
-        }
-        return dpToPx(10.5f);
-    }
-
-    private int getBatteryViewHeight() {
-        if (isAndroidL()) {
-            return dpToPx(15.5f);
-        }
-        return dpToPx(16);
+    public int getBatteryViewHeight() {
+        return mProfile.getBatteryHeight();
     }
 
     public int getNetworkIconPaddingOffset() {
-        if (isAndroidL()) {
-            return dpToPx(3);
-        }
-        return 0;
+        return mProfile.getNetworkIconPaddingOffset();
     }
 
     public int getWifiPaddingOffset() {
-        if (isAndroidL()) {
-            return dpToPx(4);
-        }
-        return 0;
+        return mProfile.getWifiPaddingOffset();
+    }
+
+    public int getBatteryViewBottomMargin() {
+        return mProfile.getBatteryBottomMargin();
     }
 
     public void setBatteryViewDimensions(View v) {
         v.getLayoutParams().width = getBatteryViewWidth();
         v.getLayoutParams().height = getBatteryViewHeight();
-        if (!isAndroidL()) {
-            ((LinearLayout.LayoutParams) v.getLayoutParams()).bottomMargin = dpToPx(0.33f);
-        }
+        ((LinearLayout.LayoutParams) v.getLayoutParams()).bottomMargin = getBatteryViewBottomMargin();
     }
-}
+}
\ No newline at end of file
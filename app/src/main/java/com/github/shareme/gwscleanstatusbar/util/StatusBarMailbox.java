@@ -0,0 +1,232 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Latest wins mailbox between whoever changes the status bar and the overlay. Only the newest
+ * posted state is kept and it is applied at most once per display frame, anything posted in
+ * between is counted as coalesced.
+ *
+ * Must be created on the main thread, {@link #post(StatusBarState, Runnable)} can be called from any thread.
+ *
+ * With {@link ApplyLatencyStats} set every apply is timed from the oldest request behind it to
+ * the frame after the one that drew it.
+ */
+public class StatusBarMailbox implements Choreographer.FrameCallback {
+
+    public interface Target {
+        void applyStatusBarState(StatusBarState state);
+    }
+
+    private final Choreographer mChoreographer;
+    private final Target mTarget;
+
+    private StatusBarState mPendingState;
+    private boolean mIsScheduled;
+    private int mPostedCount;
+    private int mAppliedCount;
+    private final ArrayList<Runnable> mPendingCallbacks = new ArrayList<>();
+    private long mPendingPostedAtNanos;
+    private long mPendingRequestedAtNanos;
+    private ApplyLatencyStats mLatencyStats;
+
+    // main thread only
+    private final ArrayList<Runnable> mAppliedCallbacks = new ArrayList<>();
+    private long mLastApplyFrameTimeNanos;
+    private boolean mIsDrawnCallbackScheduled;
+    private boolean mIsApplyUndrawn;
+    private long mAppliedAtNanos;
+    private long mAppliedRequestedAtNanos;
+
+    private final Choreographer.FrameCallback mDrawnCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mIsDrawnCallbackScheduled = false;
+            if (frameTimeNanos <= mLastApplyFrameTimeNanos) {
+                // the frame that draws the applied state is still running
+                scheduleDrawnCallback();
+                return;
+            }
+            onDrawn(frameTimeNanos);
+
+            // a drawn callback that posts the next state, like the scenario player, still makes
+            // this frame instead of waiting for the next one
+            boolean isPending;
+            synchronized (StatusBarMailbox.this) {
+                isPending = mPendingState != null;
+            }
+            if (isPending) {
+                mChoreographer.removeFrameCallback(StatusBarMailbox.this);
+                StatusBarMailbox.this.doFrame(frameTimeNanos);
+            }
+        }
+    };
+
+    public StatusBarMailbox(Target target) {
+        mChoreographer = Choreographer.getInstance();
+        mTarget = target;
+    }
+
+    /**
+     * Main thread only, null turns the timing off.
+     */
+    public void setLatencyStats(ApplyLatencyStats latencyStats) {
+        mLatencyStats = latencyStats;
+    }
+
+    public void post(StatusBarState state) {
+        post(state, null);
+    }
+
+    /**
+     * @param onDrawn run on the main thread once a frame showing this state, or a newer state that
+     *                replaced it, has been drawn
+     */
+    public void post(StatusBarState state, Runnable onDrawn) {
+        post(state, onDrawn, System.nanoTime());
+    }
+
+    /**
+     * @param requestedAtNanos System.nanoTime() of whatever asked for this state, if that was before now
+     */
+    public void post(StatusBarState state, Runnable onDrawn, long requestedAtNanos) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (mPendingState == null) {
+                mPendingPostedAtNanos = now;
+                mPendingRequestedAtNanos = requestedAtNanos;
+            } else {
+                mPendingRequestedAtNanos = Math.min(mPendingRequestedAtNanos, requestedAtNanos);
+            }
+            mPendingState = state;
+            mPostedCount++;
+            if (onDrawn != null) {
+                mPendingCallbacks.add(onDrawn);
+            }
+            if (mIsScheduled) {
+                return;
+            }
+            mIsScheduled = true;
+        }
+        mChoreographer.postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (frameTimeNanos <= mLastApplyFrameTimeNanos) {
+            // the drawn callback got to this frame first and applied already
+            return;
+        }
+
+        // anything applied in an earlier frame has been drawn by now
+        onDrawn(frameTimeNanos);
+
+        StatusBarState state;
+        long postedAtNanos;
+        long requestedAtNanos;
+        synchronized (this) {
+            state = mPendingState;
+            mPendingState = null;
+            mIsScheduled = false;
+            if (state == null) {
+                return;
+            }
+            mAppliedCount++;
+            mAppliedCallbacks.addAll(mPendingCallbacks);
+            mPendingCallbacks.clear();
+            postedAtNanos = mPendingPostedAtNanos;
+            requestedAtNanos = mPendingRequestedAtNanos;
+        }
+
+        ApplyLatencyStats stats = mLatencyStats;
+        long applyStartNanos = System.nanoTime();
+        mTarget.applyStatusBarState(state);
+
+        mLastApplyFrameTimeNanos = frameTimeNanos;
+        if (stats != null) {
+            mAppliedAtNanos = System.nanoTime();
+            mAppliedRequestedAtNanos = requestedAtNanos;
+            mIsApplyUndrawn = true;
+            stats.record(ApplyLatencyStats.STAGE_QUEUE, postedAtNanos, applyStartNanos);
+            stats.record(ApplyLatencyStats.STAGE_APPLY, applyStartNanos, mAppliedAtNanos);
+        }
+        if (!mAppliedCallbacks.isEmpty() || mIsApplyUndrawn) {
+            scheduleDrawnCallback();
+        }
+    }
+
+    private void onDrawn(long frameTimeNanos) {
+        ApplyLatencyStats stats = mLatencyStats;
+        if (mIsApplyUndrawn && stats != null) {
+            // the frame may have started before the apply that ran inside it finished
+            long drawnAtNanos = Math.max(frameTimeNanos, mAppliedAtNanos);
+            stats.record(ApplyLatencyStats.STAGE_DRAW, mAppliedAtNanos, drawnAtNanos);
+            stats.record(ApplyLatencyStats.STAGE_TOTAL, mAppliedRequestedAtNanos, drawnAtNanos);
+        }
+        mIsApplyUndrawn = false;
+        runAppliedCallbacks();
+    }
+
+    private void scheduleDrawnCallback() {
+        if (!mIsDrawnCallbackScheduled) {
+            mIsDrawnCallbackScheduled = true;
+            mChoreographer.postFrameCallback(mDrawnCallback);
+        }
+    }
+
+    private void runAppliedCallbacks() {
+        int count = mAppliedCallbacks.size();
+        for (int i = 0; i < count; i++) {
+            mAppliedCallbacks.get(i).run();
+        }
+        mAppliedCallbacks.clear();
+    }
+
+    /**
+     * Drops anything pending, used when the overlay goes away.
+     */
+    public void cancel() {
+        synchronized (this) {
+            mPendingState = null;
+            mIsScheduled = false;
+            mPendingCallbacks.clear();
+        }
+        mChoreographer.removeFrameCallback(this);
+        mChoreographer.removeFrameCallback(mDrawnCallback);
+        mIsDrawnCallbackScheduled = false;
+        mIsApplyUndrawn = false;
+        mAppliedCallbacks.clear();
+    }
+
+    public synchronized int getPostedCount() {
+        return mPostedCount;
+    }
+
+    public synchronized int getAppliedCount() {
+        return mAppliedCount;
+    }
+
+    /**
+     * @return how many posted states were replaced by a newer one before they were applied
+     */
+    public synchronized int getCoalescedCount() {
+        return mPostedCount - mAppliedCount - (mPendingState != null ? 1 : 0);
+    }
+}
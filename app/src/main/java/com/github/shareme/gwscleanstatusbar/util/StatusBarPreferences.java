@@ -0,0 +1,263 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.text.TextUtils;
+
+import com.github.shareme.gwscleanstatusbar.R;
+import com.github.shareme.gwscleanstatusbar.core.TimeCodec;
+import com.github.shareme.gwscleanstatusbar.prefs.TimePreference;
+
+/**
+ * Typed snapshot of the status bar preferences. Everything is read and parsed once, after that
+ * a change to one key re-reads and re-parses only the field behind that key.
+ */
+public class StatusBarPreferences implements SharedPreferences.OnSharedPreferenceChangeListener {
+
+    public interface Listener {
+        void onStatusBarPreferenceChanged(String key);
+    }
+
+    private final SharedPreferences mSharedPreferences;
+
+    private final String mKeyApiLevel;
+    private final String mKeyKitKatGradient;
+    private final String mKeyBackgroundColour;
+    private final String mKeyClockTime;
+    private final String mKeySignalWifi;
+    private final String mKeySignal3g;
+    private final String mKeyGps;
+    private final String mKeyFlatRendering;
+    private final String mKeyBakedRendering;
+    private final String mKeyOtherDisplays;
+    private final String mKeyLiveClock;
+    private final String mKey24HourFormat;
+
+    private StatusBarState mState;
+    private boolean mIsFlatRenderingEnabled;
+    private boolean mIsBakedRenderingEnabled;
+    private boolean mIsOtherDisplaysEnabled;
+    private boolean mIsLiveClockEnabled;
+    private boolean mIs24HourFormat;
+
+    private Listener mListener;
+
+    public StatusBarPreferences(Context context, SharedPreferences sharedPreferences) {
+        mSharedPreferences = sharedPreferences;
+
+        mKeyApiLevel = context.getString(R.string.key_api_level);
+        mKeyKitKatGradient = context.getString(R.string.key_kit_kat_gradient);
+        mKeyBackgroundColour = context.getString(R.string.key_background_colour);
+        mKeyClockTime = context.getString(R.string.key_clock_time);
+        mKeySignalWifi = context.getString(R.string.key_signal_wifi);
+        mKeySignal3g = context.getString(R.string.key_signal_3g);
+        mKeyGps = context.getString(R.string.key_gps);
+        mKeyFlatRendering = context.getString(R.string.key_flat_rendering);
+        mKeyBakedRendering = context.getString(R.string.key_baked_rendering);
+        mKeyOtherDisplays = context.getString(R.string.key_other_displays);
+        mKeyLiveClock = context.getString(R.string.key_live_clock);
+        mKey24HourFormat = context.getString(R.string.key_use_24_hour_format);
+
+        load();
+    }
+
+    public void setListener(Listener listener) {
+        if (mListener == null && listener != null) {
+            mSharedPreferences.registerOnSharedPreferenceChangeListener(this);
+        } else if (mListener != null && listener == null) {
+            mSharedPreferences.unregisterOnSharedPreferenceChangeListener(this);
+        }
+        mListener = listener;
+    }
+
+    public StatusBarState getState() {
+        return mState;
+    }
+
+    public boolean isFlatRenderingEnabled() {
+        return mIsFlatRenderingEnabled;
+    }
+
+    public boolean isBakedRenderingEnabled() {
+        return mIsBakedRenderingEnabled;
+    }
+
+    /**
+     * @return true if every display should get an overlay, not just the default one
+     */
+    public boolean isOtherDisplaysEnabled() {
+        return mIsOtherDisplaysEnabled;
+    }
+
+    public boolean isOtherDisplaysKey(String key) {
+        return mKeyOtherDisplays.equals(key);
+    }
+
+    public boolean isLiveClockEnabled() {
+        return mIsLiveClockEnabled;
+    }
+
+    public boolean is24HourFormat() {
+        return mIs24HourFormat;
+    }
+
+    private void load() {
+        // before the clock, which is shown in this format
+        mIs24HourFormat = mSharedPreferences.getBoolean(mKey24HourFormat, false);
+
+        StatusBarState.Builder builder = new StatusBarState.Builder();
+        readApiLevel(builder);
+        readKitKatGradient(builder);
+        readBackgroundColour(builder);
+        readClockTime(builder);
+        readWifi(builder);
+        readNetworkIcon(builder);
+        readGps(builder);
+        mState = builder.build();
+
+        mIsFlatRenderingEnabled = mSharedPreferences.getBoolean(mKeyFlatRendering, false);
+        mIsBakedRenderingEnabled = mSharedPreferences.getBoolean(mKeyBakedRendering, false);
+        mIsLiveClockEnabled = mSharedPreferences.getBoolean(mKeyLiveClock, false);
+        mIsOtherDisplaysEnabled = mSharedPreferences.getBoolean(mKeyOtherDisplays, false);
+    }
+
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (key == null) {
+            return;
+        }
+
+        if (key.equals(mKeyFlatRendering)) {
+            mIsFlatRenderingEnabled = mSharedPreferences.getBoolean(mKeyFlatRendering, false);
+        } else if (key.equals(mKeyBakedRendering)) {
+            mIsBakedRenderingEnabled = mSharedPreferences.getBoolean(mKeyBakedRendering, false);
+        } else if (key.equals(mKeyOtherDisplays)) {
+            mIsOtherDisplaysEnabled = mSharedPreferences.getBoolean(mKeyOtherDisplays, false);
+        } else if (key.equals(mKeyLiveClock)) {
+            mIsLiveClockEnabled = mSharedPreferences.getBoolean(mKeyLiveClock, false);
+        } else if (key.equals(mKey24HourFormat)) {
+            mIs24HourFormat = mSharedPreferences.getBoolean(mKey24HourFormat, false);
+            StatusBarState.Builder builder = new StatusBarState.Builder(mState);
+            readClockTime(builder);
+            mState = builder.build();
+        } else {
+            StatusBarState.Builder builder = new StatusBarState.Builder(mState);
+            if (!read(key, builder)) {
+                return;
+            }
+            mState = builder.build();
+        }
+
+        if (mListener != null) {
+            mListener.onStatusBarPreferenceChanged(key);
+        }
+    }
+
+    /**
+     * Reads only the field stored under the key into the builder.
+     *
+     * @return false if the key is not part of the {@link StatusBarState}
+     */
+    public boolean read(String key, StatusBarState.Builder builder) {
+        if (key.equals(mKeyApiLevel)) {
+            readApiLevel(builder);
+        } else if (key.equals(mKeyKitKatGradient)) {
+            readKitKatGradient(builder);
+        } else if (key.equals(mKeyBackgroundColour)) {
+            readBackgroundColour(builder);
+        } else if (key.equals(mKeyClockTime)) {
+            readClockTime(builder);
+        } else if (key.equals(mKeySignalWifi)) {
+            readWifi(builder);
+        } else if (key.equals(mKeySignal3g)) {
+            readNetworkIcon(builder);
+        } else if (key.equals(mKeyGps)) {
+            readGps(builder);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies only the field stored under the key from this snapshot onto another state, so values
+     * pushed from somewhere else survive a change to an unrelated preference.
+     */
+    public StatusBarState merge(String key, StatusBarState state) {
+        StatusBarState.Builder builder = new StatusBarState.Builder(state);
+        if (key.equals(mKeyApiLevel)) {
+            builder.setApiLevel(mState.getApiLevel());
+        } else if (key.equals(mKeyKitKatGradient)) {
+            builder.setKitKatGradientEnabled(mState.isKitKatGradientEnabled());
+        } else if (key.equals(mKeyBackgroundColour)) {
+            builder.setBackgroundColour(mState.getBackgroundColour());
+        } else if (key.equals(mKeyClockTime) || key.equals(mKey24HourFormat)) {
+            builder.setClockTime(mState.getClockTime());
+        } else if (key.equals(mKeySignalWifi)) {
+            builder.setShowWifi(mState.shouldShowWifi());
+        } else if (key.equals(mKeySignal3g)) {
+            builder.setNetworkIcon(mState.getNetworkIcon());
+        } else if (key.equals(mKeyGps)) {
+            builder.setShowGps(mState.shouldShowGps());
+        } else {
+            return state;
+        }
+        return builder.build();
+    }
+
+    private void readApiLevel(StatusBarState.Builder builder) {
+        builder.setApiLevel(parseApiLevel(mSharedPreferences.getString(mKeyApiLevel, "")));
+    }
+
+    private void readKitKatGradient(StatusBarState.Builder builder) {
+        builder.setKitKatGradientEnabled(mSharedPreferences.getBoolean(mKeyKitKatGradient, false));
+    }
+
+    private void readBackgroundColour(StatusBarState.Builder builder) {
+        builder.setBackgroundColour(mSharedPreferences.getInt(mKeyBackgroundColour, 0));
+    }
+
+    private void readClockTime(StatusBarState.Builder builder) {
+        int minuteOfDay = TimeCodec.parse(mSharedPreferences.getString(mKeyClockTime, TimePreference.DEFAULT_TIME_VALUE), TimeCodec.DEFAULT_MINUTE_OF_DAY);
+        builder.setClockTime(TimeCodec.toString(minuteOfDay, mIs24HourFormat));
+    }
+
+    private void readWifi(StatusBarState.Builder builder) {
+        builder.setShowWifi(mSharedPreferences.getBoolean(mKeySignalWifi, false));
+    }
+
+    private void readNetworkIcon(StatusBarState.Builder builder) {
+        builder.setNetworkIcon(Integer.parseInt(mSharedPreferences.getString(mKeySignal3g, "-1")));
+    }
+
+    private void readGps(StatusBarState.Builder builder) {
+        builder.setShowGps(mSharedPreferences.getBoolean(mKeyGps, false));
+    }
+
+    /**
+     * @return the stored api level, Lollipop if none has been picked yet
+     */
+    public static int parseApiLevel(String apiValue) {
+        if (!TextUtils.isEmpty(apiValue)) {
+            return Integer.valueOf(apiValue);
+        }
+
+        return Build.VERSION_CODES.LOLLIPOP;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Does the slow part of showing a state, mapping the profiles, loading the font and decoding
+ * and tinting its icons, on a background thread so the main thread finds it all cached when it
+ * gets to add the overlay. Nothing waits for it, a main thread lookup that gets there first
+ * simply does the work itself.
+ */
+public final class StatusBarPrewarmer {
+    private static final String TAG = "StatusBarPrewarmer";
+    private static final int NETWORK_STATUS_ICON_OFF = 0;
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "StatusBarPrewarmer");
+        }
+    });
+
+    private StatusBarPrewarmer() {
+    }
+
+    public static Future<?> prewarm(Context context, final StatusBarState state) {
+        final Resources res = context.getResources();
+        final AssetManager assets = context.getAssets();
+        return sExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    warm(state, res, assets);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Unable to prewarm " + state, e);
+                }
+            }
+        });
+    }
+
+    static void warm(StatusBarState state, Resources res, AssetManager assets) {
+        StatusBarConfig config = new StatusBarConfig(state.getApiLevel(), state.isKitKatGradientEnabled(), res, assets);
+        config.getFont();
+        if (state.getNetworkIcon() >= 0) {
+            config.getNetworkIconDrawable(state.getNetworkIcon());
+            if (state.shouldShowWifi()) {
+                config.getNetworkIconDrawable(NETWORK_STATUS_ICON_OFF);
+            }
+        }
+        if (state.shouldShowWifi()) {
+            config.getWifiDrawable();
+        }
+        if (state.shouldShowGps()) {
+            config.getGPSDrawable();
+        }
+    }
+}
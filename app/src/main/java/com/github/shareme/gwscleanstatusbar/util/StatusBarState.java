@@ -0,0 +1,180 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+/**
+ * Immutable snapshot of everything the overlay shows, compared against the last applied
+ * snapshot so {@link com.github.shareme.gwscleanstatusbar.widgets.StatusBarView} only touches what changed.
+ */
+public final class StatusBarState {
+    public static final int NETWORK_ICON_HIDDEN = -1;
+
+    private final int mApiLevel;
+    private final boolean mIsKitKatGradientEnabled;
+    private final int mBackgroundColour;
+    private final String mClockTime;
+    private final boolean mShowWifi;
+    private final int mNetworkIcon;
+    private final boolean mShowGps;
+
+    private StatusBarState(Builder builder) {
+        mApiLevel = builder.mApiLevel;
+        mIsKitKatGradientEnabled = builder.mIsKitKatGradientEnabled;
+        mBackgroundColour = builder.mBackgroundColour;
+        mClockTime = builder.mClockTime;
+        mShowWifi = builder.mShowWifi;
+        mNetworkIcon = builder.mNetworkIcon;
+        mShowGps = builder.mShowGps;
+    }
+
+    public int getApiLevel() {
+        return mApiLevel;
+    }
+
+    public boolean isKitKatGradientEnabled() {
+        return mIsKitKatGradientEnabled;
+    }
+
+    public int getBackgroundColour() {
+        return mBackgroundColour;
+    }
+
+    public String getClockTime() {
+        return mClockTime;
+    }
+
+    public boolean shouldShowWifi() {
+        return mShowWifi;
+    }
+
+    public int getNetworkIcon() {
+        return mNetworkIcon;
+    }
+
+    public boolean shouldShowGps() {
+        return mShowGps;
+    }
+
+    /**
+     * @return true if both states resolve to the same {@link StatusBarConfig}
+     */
+    public boolean hasSameProfile(StatusBarState other) {
+        return other != null && mApiLevel == other.mApiLevel && mIsKitKatGradientEnabled == other.mIsKitKatGradientEnabled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatusBarState)) {
+            return false;
+        }
+        StatusBarState other = (StatusBarState) o;
+        return mApiLevel == other.mApiLevel
+                && mIsKitKatGradientEnabled == other.mIsKitKatGradientEnabled
+                && mBackgroundColour == other.mBackgroundColour
+                && mShowWifi == other.mShowWifi
+                && mNetworkIcon == other.mNetworkIcon
+                && mShowGps == other.mShowGps
+                && (mClockTime == null ? other.mClockTime == null : mClockTime.equals(other.mClockTime));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mApiLevel;
+        result = 31 * result + (mIsKitKatGradientEnabled ? 1 : 0);
+        result = 31 * result + mBackgroundColour;
+        result = 31 * result + (mClockTime != null ? mClockTime.hashCode() : 0);
+        result = 31 * result + (mShowWifi ? 1 : 0);
+        result = 31 * result + mNetworkIcon;
+        result = 31 * result + (mShowGps ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "StatusBarState{apiLevel=" + mApiLevel
+                + ", kitKatGradient=" + mIsKitKatGradientEnabled
+                + ", backgroundColour=#" + Integer.toHexString(mBackgroundColour)
+                + ", clockTime=" + mClockTime
+                + ", wifi=" + mShowWifi
+                + ", networkIcon=" + mNetworkIcon
+                + ", gps=" + mShowGps + "}";
+    }
+
+    public static class Builder {
+        private int mApiLevel;
+        private boolean mIsKitKatGradientEnabled;
+        private int mBackgroundColour;
+        private String mClockTime;
+        private boolean mShowWifi;
+        private int mNetworkIcon = NETWORK_ICON_HIDDEN;
+        private boolean mShowGps;
+
+        public Builder() {
+        }
+
+        public Builder(StatusBarState state) {
+            mApiLevel = state.mApiLevel;
+            mIsKitKatGradientEnabled = state.mIsKitKatGradientEnabled;
+            mBackgroundColour = state.mBackgroundColour;
+            mClockTime = state.mClockTime;
+            mShowWifi = state.mShowWifi;
+            mNetworkIcon = state.mNetworkIcon;
+            mShowGps = state.mShowGps;
+        }
+
+        public Builder setApiLevel(int apiLevel) {
+            mApiLevel = apiLevel;
+            return this;
+        }
+
+        public Builder setKitKatGradientEnabled(boolean enabled) {
+            mIsKitKatGradientEnabled = enabled;
+            return this;
+        }
+
+        public Builder setBackgroundColour(int backgroundColour) {
+            mBackgroundColour = backgroundColour;
+            return this;
+        }
+
+        public Builder setClockTime(String clockTime) {
+            mClockTime = clockTime;
+            return this;
+        }
+
+        public Builder setShowWifi(boolean showWifi) {
+            mShowWifi = showWifi;
+            return this;
+        }
+
+        public Builder setNetworkIcon(int networkIcon) {
+            mNetworkIcon = networkIcon;
+            return this;
+        }
+
+        public Builder setShowGps(boolean showGps) {
+            mShowGps = showGps;
+            return this;
+        }
+
+        public StatusBarState build() {
+            return new StatusBarState(this);
+        }
+    }
+}
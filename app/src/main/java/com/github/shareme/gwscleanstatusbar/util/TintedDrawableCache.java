@@ -0,0 +1,134 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.content.res.Resources;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * Process wide LRU cache of tinted status bar icons keyed by (drawableResId, colour, apiLevel,
+ * densityDpi), so overlays on displays of the same density share one decoded bitmap.
+ *
+ * Only the {@link Drawable.ConstantState} is kept, each caller gets its own mutated instance
+ * which shares the decoded bitmap so a view can hold it without stealing another view's callback.
+ */
+public class TintedDrawableCache {
+    private static final int MAX_ENTRIES = 32;
+
+    private static final TintedDrawableCache sInstance = new TintedDrawableCache(MAX_ENTRIES);
+
+    private final LruCache<Key, Drawable.ConstantState> mCache;
+    private int mHitCount;
+    private int mMissCount;
+
+    TintedDrawableCache(int maxEntries) {
+        mCache = new LruCache<>(maxEntries);
+    }
+
+    public static TintedDrawableCache getInstance() {
+        return sInstance;
+    }
+
+    @SuppressWarnings("deprecation")
+    public Drawable get(Resources res, int drawableResId, int colour, int apiLevel) {
+        Key key = new Key(drawableResId, colour, apiLevel, res.getDisplayMetrics().densityDpi);
+        Drawable.ConstantState state = mCache.get(key);
+        if (state != null) {
+            synchronized (this) {
+                mHitCount++;
+            }
+            return tint(state.newDrawable(res), colour);
+        }
+
+        synchronized (this) {
+            mMissCount++;
+        }
+        //TODO: getDrawable is depreciated
+        Drawable drawable = res.getDrawable(drawableResId);
+        if (drawable == null) {
+            return null;
+        }
+        tint(drawable, colour);
+
+        state = drawable.getConstantState();
+        if (state != null) {
+            mCache.put(key, state);
+        }
+        return drawable;
+    }
+
+    private static Drawable tint(Drawable drawable, int colour) {
+        Drawable mutated = drawable.mutate();
+        mutated.setColorFilter(colour, PorterDuff.Mode.SRC_IN);
+        return mutated;
+    }
+
+    public int size() {
+        return mCache.size();
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized void clear() {
+        mCache.evictAll();
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    private static final class Key {
+        private final int mDrawableResId;
+        private final int mColour;
+        private final int mApiLevel;
+        private final int mDensityDpi;
+
+        Key(int drawableResId, int colour, int apiLevel, int densityDpi) {
+            mDrawableResId = drawableResId;
+            mColour = colour;
+            mApiLevel = apiLevel;
+            mDensityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mDrawableResId == other.mDrawableResId && mColour == other.mColour && mApiLevel == other.mApiLevel
+                    && mDensityDpi == other.mDensityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mDrawableResId;
+            result = 31 * result + mColour;
+            result = 31 * result + mApiLevel;
+            result = 31 * result + mDensityDpi;
+            return result;
+        }
+    }
+}
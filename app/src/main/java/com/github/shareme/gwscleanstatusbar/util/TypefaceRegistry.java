@@ -0,0 +1,125 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process wide registry of asset fonts. Each asset is opened once, whichever thread gets there
+ * first does the load, usually {@link StatusBarPrewarmer}, and everyone else shares the same instance.
+ */
+public class TypefaceRegistry {
+    private static final String TAG = "TypefaceRegistry";
+
+    private static TypefaceRegistry sInstance = new TypefaceRegistry(new AssetLoader());
+
+    private final ConcurrentMap<String, FutureTask<Typeface>> mTypefaces = new ConcurrentHashMap<>();
+    private final Loader mLoader;
+    private int mHitCount;
+    private int mMissCount;
+
+    TypefaceRegistry(Loader loader) {
+        mLoader = loader;
+    }
+
+    public static TypefaceRegistry getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    static void setInstance(TypefaceRegistry registry) {
+        sInstance = registry;
+    }
+
+    /**
+     * @return the shared font, blocking only if another thread is still loading the same asset
+     */
+    public Typeface get(AssetManager assets, String path) {
+        FutureTask<Typeface> task = mTypefaces.get(path);
+        boolean isLoader = false;
+        if (task == null) {
+            FutureTask<Typeface> created = newTask(assets, path);
+            task = mTypefaces.putIfAbsent(path, created);
+            if (task == null) {
+                task = created;
+                isLoader = true;
+                task.run();
+            }
+        }
+        synchronized (this) {
+            if (isLoader) {
+                mMissCount++;
+            } else {
+                mHitCount++;
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Unable to load font " + path, e.getCause());
+            // only this failed task, a retry may already have replaced it
+            mTypefaces.remove(path, task);
+        }
+        return null;
+    }
+
+    public int size() {
+        return mTypefaces.size();
+    }
+
+    /**
+     * @return lookups through {@link #get(AssetManager, String)} that found the font already loaded or loading
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    private FutureTask<Typeface> newTask(final AssetManager assets, final String path) {
+        return new FutureTask<>(new Callable<Typeface>() {
+            @Override
+            public Typeface call() throws Exception {
+                return mLoader.load(assets, path);
+            }
+        });
+    }
+
+    interface Loader {
+        Typeface load(AssetManager assets, String path);
+    }
+
+    private static class AssetLoader implements Loader {
+        @Override
+        public Typeface load(AssetManager assets, String path) {
+            return Typeface.createFromAsset(assets, path);
+        }
+    }
+}
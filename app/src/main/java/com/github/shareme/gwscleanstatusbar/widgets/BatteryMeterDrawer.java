@@ -0,0 +1,137 @@
+/*
+ * Adapted from AOSP
+ *
+ * Copyright (C) 2013 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.RectF;
+
+import com.github.shareme.gwscleanstatusbar.R;
+import com.github.shareme.gwscleanstatusbar.core.BatteryGeometry;
+
+/**
+ * Battery shape shared by {@link BatteryMeterView} and {@link FlatStatusBarView}.
+ *
+ * The default path draws the frame and button as one path and works under hardware acceleration.
+ * The legacy path is the original AOSP drawing with a DST_ATOP frame paint, kept for pixel
+ * comparisons, callers have to give it a software layer of its own.
+ * All geometry is worked out by {@link BatteryGeometry} in {@link #setBounds(int, int, int, int)},
+ * draw only issues draw calls.
+ */
+class BatteryMeterDrawer {
+    public static final float SUBPIXEL = BatteryGeometry.SUBPIXEL;
+
+    final Paint mFramePaint, mBatteryPaint;
+    int mButtonHeight;
+
+    private final float[] mGeometry = new float[BatteryGeometry.SIZE];
+    private final RectF mFrame = new RectF();
+    private final RectF mButtonFrame = new RectF();
+    private final RectF mClipFrame = new RectF();
+    private final Path mBatteryPath = new Path();
+    private boolean mIsLegacyDrawing;
+    private boolean mHasBounds;
+
+    @SuppressWarnings("deprecation")
+    BatteryMeterDrawer(Resources res) {
+        mFramePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        //TODO: getColor depreciated
+        mFramePaint.setColor(res.getColor(R.color.batterymeter_frame_color));
+        mFramePaint.setDither(true);
+        mFramePaint.setStrokeWidth(0);
+        mFramePaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        mFramePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_ATOP));
+
+        mBatteryPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mBatteryPaint.setDither(true);
+        mBatteryPaint.setStrokeWidth(0);
+        mBatteryPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        mBatteryPaint.setColor(0);
+
+        mBatteryPath.setFillType(Path.FillType.WINDING);
+    }
+
+    void setLegacyDrawing(boolean isLegacyDrawing) {
+        mIsLegacyDrawing = isLegacyDrawing;
+    }
+
+    boolean isLegacyDrawing() {
+        return mIsLegacyDrawing;
+    }
+
+    /**
+     * @return true if the colour changed
+     */
+    boolean setBatteryColour(int colour) {
+        if (mBatteryPaint.getColor() == colour) {
+            return false;
+        }
+        mBatteryPaint.setColor(colour);
+        return true;
+    }
+
+    /**
+     * Lays the battery out in the width x height box whose top left corner is at (left, top).
+     */
+    void setBounds(int left, int top, int width, int height) {
+        mHasBounds = width > 0 && height > 0;
+
+        mButtonHeight = BatteryGeometry.layout(left, top, width, height, mGeometry);
+
+        int frame = BatteryGeometry.FRAME;
+        mFrame.set(mGeometry[frame], mGeometry[frame + 1], mGeometry[frame + 2], mGeometry[frame + 3]);
+        int button = BatteryGeometry.BUTTON;
+        mButtonFrame.set(mGeometry[button], mGeometry[button + 1], mGeometry[button + 2], mGeometry[button + 3]);
+
+        mClipFrame.set(mFrame);
+
+        // the fill covers the whole frame, so the visible shape is the union of frame and button
+        mBatteryPath.rewind();
+        mBatteryPath.addRect(mFrame, Path.Direction.CW);
+        mBatteryPath.addRect(mButtonFrame, Path.Direction.CW);
+    }
+
+    void draw(Canvas c) {
+        if (!mHasBounds) {
+            return;
+        }
+
+        if (mIsLegacyDrawing) {
+            drawLegacy(c);
+        } else {
+            c.drawPath(mBatteryPath, mBatteryPaint);
+        }
+    }
+
+    private void drawLegacy(Canvas c) {
+        // first, draw the battery shape
+        c.drawRect(mFrame, mFramePaint);
+
+        // fill 'er up
+        c.drawRect(mButtonFrame, mBatteryPaint);
+
+        c.save(Canvas.CLIP_SAVE_FLAG);
+        c.clipRect(mClipFrame);
+        c.drawRect(mFrame, mBatteryPaint);
+        c.restore();
+    }
+}
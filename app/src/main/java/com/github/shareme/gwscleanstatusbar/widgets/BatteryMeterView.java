@@ -21,29 +21,14 @@ package com.github.shareme.gwscleanstatusbar.widgets;
 
 import android.content.Context;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
-import com.github.shareme.gwscleanstatusbar.R;
-
 
 public class BatteryMeterView extends View {
-    public static final float SUBPIXEL = 0.4f;  // inset rects for softer edges
-
-    Paint mFramePaint, mBatteryPaint;
-    int mButtonHeight;
-
-    private int mHeight;
-    private int mWidth;
+    public static final float SUBPIXEL = BatteryMeterDrawer.SUBPIXEL;
 
-    private final RectF mFrame = new RectF();
-    private final RectF mButtonFrame = new RectF();
-    private final RectF mClipFrame = new RectF();
-    private int mBatteryColour;
+    private final BatteryMeterDrawer mDrawer;
 
     public BatteryMeterView(Context context) {
         this(context, null, 0);
@@ -53,80 +38,59 @@ public class BatteryMeterView extends View {
         this(context, attrs, 0);
     }
 
-    @SuppressWarnings("deprecation")
     public BatteryMeterView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
 
-        mFramePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        //TODO: getColor depreciated
-        mFramePaint.setColor(getResources().getColor(R.color.batterymeter_frame_color));
-        mFramePaint.setDither(true);
-        mFramePaint.setStrokeWidth(0);
-        mFramePaint.setStyle(Paint.Style.FILL_AND_STROKE);
-        mFramePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_ATOP));
-
-        mBatteryPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mBatteryPaint.setDither(true);
-        mBatteryPaint.setStrokeWidth(0);
-        mBatteryPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+        mDrawer = new BatteryMeterDrawer(getResources());
+    }
 
-        setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+    /**
+     * Switches back to the original DST_ATOP drawing, which needs a software layer. Only meant
+     * for comparing pixels against the path based drawing.
+     */
+    public void setLegacyDrawing(boolean isLegacyDrawing) {
+        if (mDrawer.isLegacyDrawing() != isLegacyDrawing) {
+            mDrawer.setLegacyDrawing(isLegacyDrawing);
+            setLayerType(isLegacyDrawing ? View.LAYER_TYPE_SOFTWARE : View.LAYER_TYPE_NONE, null);
+            invalidate();
+        }
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        mHeight = h;
-        mWidth = w;
+        updateBounds(w, h);
     }
 
-    public void setBatteryColour(int colour) {
-        mBatteryColour = colour;
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+
+        if (mDrawer != null) {
+            updateBounds(getWidth(), getHeight());
+        }
     }
 
-    @Override
-    public void draw(Canvas c) {
-        super.draw(c);
+    private void updateBounds(int w, int h) {
         final int pt = getPaddingTop();
         final int pl = getPaddingLeft();
         final int pr = getPaddingRight();
         final int pb = getPaddingBottom();
-        int height = mHeight - pt - pb;
-        int width = mWidth - pl - pr;
-
-        mButtonHeight = (int) (height * 0.12f);
+        int height = h - pt - pb;
+        int width = w - pl - pr;
 
-        mFrame.set(0, 0, width, height);
-        mFrame.offset(pl, pt);
-
-        mButtonFrame.set(
-                mFrame.left + width * 0.25f,
-                mFrame.top,
-                mFrame.right - width * 0.25f,
-                mFrame.top + mButtonHeight + 5 /*cover frame border of intersecting area*/);
-
-        mButtonFrame.top += SUBPIXEL;
-        mButtonFrame.left += SUBPIXEL;
-        mButtonFrame.right -= SUBPIXEL;
-
-        mFrame.top += mButtonHeight;
-        mFrame.left += SUBPIXEL;
-        mFrame.top += SUBPIXEL;
-        mFrame.right -= SUBPIXEL;
-        mFrame.bottom -= SUBPIXEL;
-
-        // first, draw the battery shape
-        c.drawRect(mFrame, mFramePaint);
-
-        // fill 'er up
-        mBatteryPaint.setColor(mBatteryColour);
+        mDrawer.setBounds(pl, pt, width, height);
+    }
 
-        c.drawRect(mButtonFrame, mBatteryPaint);
+    public void setBatteryColour(int colour) {
+        if (mDrawer.setBatteryColour(colour)) {
+            invalidate();
+        }
+    }
 
-        mClipFrame.set(mFrame);
+    @Override
+    public void draw(Canvas c) {
+        super.draw(c);
 
-        c.save(Canvas.CLIP_SAVE_FLAG);
-        c.clipRect(mClipFrame);
-        c.drawRect(mFrame, mBatteryPaint);
-        c.restore();
+        mDrawer.draw(c);
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+import com.github.shareme.gwscleanstatusbar.util.ClockGlyphAtlas;
+
+/**
+ * Measures and draws the clock text for {@link ClockView} and {@link FlatStatusBarView}.
+ * Times are copied out of a {@link ClockGlyphAtlas}, anything the atlas does not hold falls
+ * back to drawing text.
+ */
+class ClockDrawer {
+    private static final int MAX_DIGITS = 4;
+
+    private final TextPaint mPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetricsInt mFontMetrics = new Paint.FontMetricsInt();
+    private ClockGlyphAtlas mAtlas;
+
+    private String mTime = "";
+    private boolean mCanUseAtlas;
+    private int mTextWidth;
+    // set by a font change, so the atlas is only built once it is measured or drawn
+    private boolean mIsTextWidthDirty = true;
+
+    ClockDrawer(float density) {
+        mPaint.density = density;
+        mPaint.getFontMetricsInt(mFontMetrics);
+    }
+
+    /**
+     * @param textSize in pixels
+     */
+    void setFont(Typeface typeface, float textSize, int colour) {
+        mPaint.setTypeface(typeface);
+        mPaint.setTextSize(textSize);
+        mPaint.setColor(colour);
+        mPaint.getFontMetricsInt(mFontMetrics);
+        mAtlas = null;
+        mIsTextWidthDirty = true;
+    }
+
+    /**
+     * @return true if the text width changed, or may have since a font change not yet measured
+     */
+    boolean setTime(String time) {
+        mTime = time == null ? "" : time;
+        if (mIsTextWidthDirty) {
+            return true;
+        }
+        int oldWidth = mTextWidth;
+        updateTextWidth();
+        return mTextWidth != oldWidth;
+    }
+
+    String getTime() {
+        return mTime;
+    }
+
+    int getTextWidth() {
+        ensureTextWidth();
+        return mTextWidth;
+    }
+
+    /**
+     * @return the width of four of the widest digit around a colon
+     */
+    int getReservedTextWidth() {
+        ensureTextWidth();
+        ClockGlyphAtlas atlas = getAtlas();
+        return Math.max(mTextWidth, (int) Math.ceil(atlas.getWidestDigitAdvance() * MAX_DIGITS + atlas.getColonAdvance()));
+    }
+
+    /**
+     * @return the height of a single line TextView with font padding
+     */
+    int getLineHeight() {
+        return mFontMetrics.bottom - mFontMetrics.top;
+    }
+
+    /**
+     * Draws the text ending at right with the top of its line at top.
+     */
+    void draw(Canvas canvas, int right, int top) {
+        if (mTime.isEmpty()) {
+            return;
+        }
+
+        ensureTextWidth();
+        int left = right - mTextWidth;
+        if (mCanUseAtlas) {
+            getAtlas().draw(canvas, mTime, left, top);
+        } else {
+            canvas.drawText(mTime, left, top - mFontMetrics.top, mPaint);
+        }
+    }
+
+    private ClockGlyphAtlas getAtlas() {
+        if (mAtlas == null) {
+            mAtlas = ClockGlyphAtlas.get(mPaint.getTypeface(), mPaint.getTextSize(), mPaint.getColor());
+        }
+        return mAtlas;
+    }
+
+    private void ensureTextWidth() {
+        if (mIsTextWidthDirty) {
+            updateTextWidth();
+        }
+    }
+
+    private void updateTextWidth() {
+        mIsTextWidthDirty = false;
+        ClockGlyphAtlas atlas = getAtlas();
+        mCanUseAtlas = atlas.canDraw(mTime);
+        float width = mCanUseAtlas ? atlas.measure(mTime) : mPaint.measureText(mTime);
+        mTextWidth = (int) Math.ceil(width);
+    }
+}
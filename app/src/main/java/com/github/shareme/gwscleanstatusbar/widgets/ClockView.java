@@ -0,0 +1,129 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * Status bar clock, measured like the single line wrap_content TextView it replaces but drawn
+ * from a glyph atlas, so a new time is a few bitmap copies without any text layout.
+ *
+ * With the width reserved the view is as wide as the widest possible time and the text sits on
+ * the right, so a new time only invalidates this view, even going from "9:59" to "10:00".
+ */
+public class ClockView extends View {
+    private final ClockDrawer mDrawer;
+
+    private Typeface mTypeface;
+    private float mTextSize;
+    private int mTextColour;
+    private boolean mIsWidthReserved;
+
+    public ClockView(Context context) {
+        this(context, null, 0);
+    }
+
+    public ClockView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ClockView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+
+        mDrawer = new ClockDrawer(getResources().getDisplayMetrics().density);
+        mTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14, getResources().getDisplayMetrics());
+    }
+
+    public void setTime(String time) {
+        if (mDrawer.setTime(time) && !mIsWidthReserved) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    public String getTime() {
+        return mDrawer.getTime();
+    }
+
+    public void setTypeface(Typeface typeface) {
+        mTypeface = typeface;
+        updateFont();
+    }
+
+    public void setTextSize(int unit, float size) {
+        mTextSize = TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics());
+        updateFont();
+    }
+
+    public void setTextColour(int colour) {
+        mTextColour = colour;
+        updateFont();
+    }
+
+    /**
+     * Sets typeface, size and colour together, for one new glyph atlas rather than one per setter.
+     */
+    public void setFont(Typeface typeface, int unit, float size, int colour) {
+        mTypeface = typeface;
+        mTextSize = TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics());
+        mTextColour = colour;
+        updateFont();
+    }
+
+    public void setWidthReserved(boolean isWidthReserved) {
+        if (mIsWidthReserved != isWidthReserved) {
+            mIsWidthReserved = isWidthReserved;
+            requestLayout();
+            invalidate();
+        }
+    }
+
+    public boolean isWidthReserved() {
+        return mIsWidthReserved;
+    }
+
+    private void updateFont() {
+        mDrawer.setFont(mTypeface, mTextSize, mTextColour);
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int textWidth = mIsWidthReserved ? mDrawer.getReservedTextWidth() : mDrawer.getTextWidth();
+        int width = textWidth + getPaddingLeft() + getPaddingRight();
+        int height = mDrawer.getLineHeight() + getPaddingTop() + getPaddingBottom();
+
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int contentHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+        int top = getPaddingTop() + (contentHeight - mDrawer.getLineHeight()) / 2;
+
+        int save = canvas.save();
+        canvas.clipRect(getPaddingLeft(), getPaddingTop(), getWidth() - getPaddingRight(), getHeight() - getPaddingBottom());
+        // right aligned, the same as left aligned when the view wraps the text
+        mDrawer.draw(canvas, getWidth() - getPaddingRight(), top);
+        canvas.restoreToCount(save);
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+/**
+ * Single view alternative to {@link StatusBarView}. Positions are worked out the same way the
+ * horizontal LinearLayout, ImageViews, BatteryMeterView and ClockView of R.layout.status_bar do it,
+ * then everything is drawn from those positions in one onDraw.
+ */
+public class FlatStatusBarView extends View implements StatusBarRenderer {
+    private static final int NETWORK_STATUS_ICON_OFF = 0;
+
+    // from R.layout.status_bar
+    private static final float BATTERY_MARGIN_LEFT_DP = 4;
+    private static final float CLOCK_PADDING_LEFT_DP = 6;
+
+    private final IconSlot mGpsSlot = new IconSlot();
+    private final IconSlot mWifiSlot = new IconSlot();
+    private final IconSlot m3gSlot = new IconSlot();
+
+    private final BatteryMeterDrawer mBatteryDrawer;
+    private Bitmap mBatteryBitmap;
+    private boolean mBatteryBitmapDirty;
+    private int mBatteryWidth;
+    private int mBatteryHeight;
+    private int mBatteryMarginLeft;
+    private int mBatteryMarginBottom;
+    private int mBatteryLeft;
+    private int mBatteryTop;
+
+    private final ClockDrawer mClockDrawer;
+    private boolean mIsClockWidthReserved;
+    private int mClockPaddingLeft;
+    private int mClockWidth;
+    private int mClockHeight;
+    private int mClockLeft;
+    private int mClockTop;
+
+    private StatusBarConfig mStatusBarConfig;
+    private StatusBarState mAppliedState;
+    private int mAppliedUpdateCount;
+    private int mSkippedUpdateCount;
+
+    public FlatStatusBarView(Context context) {
+        this(context, null, 0);
+    }
+
+    public FlatStatusBarView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public FlatStatusBarView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+
+        mBatteryDrawer = new BatteryMeterDrawer(getResources());
+        mClockDrawer = new ClockDrawer(getResources().getDisplayMetrics().density);
+        mBatteryMarginLeft = dimensionPixelSize(BATTERY_MARGIN_LEFT_DP);
+        mClockPaddingLeft = dimensionPixelSize(CLOCK_PADDING_LEFT_DP);
+    }
+
+    @Override
+    public void setStatusBarState(StatusBarState state) {
+        StatusBarState previous = mAppliedState;
+        if (state.equals(previous)) {
+            mSkippedUpdateCount++;
+            return;
+        }
+        mAppliedUpdateCount++;
+
+        boolean profileChanged = !state.hasSameProfile(previous);
+        if (profileChanged) {
+            mStatusBarConfig = new StatusBarConfig(state.getApiLevel(), state.isKitKatGradientEnabled(), getResources(), getContext().getAssets());
+
+            mBatteryWidth = mStatusBarConfig.getBatteryViewWidth();
+            mBatteryHeight = mStatusBarConfig.getBatteryViewHeight();
+            mBatteryMarginBottom = mStatusBarConfig.getBatteryViewBottomMargin();
+            mBatteryDrawer.setBatteryColour(mStatusBarConfig.getForegroundColour());
+
+            setClockFont(mStatusBarConfig.getFont(), mStatusBarConfig.getFontSize(), mStatusBarConfig.getForegroundColour());
+        }
+
+        if (previous == null || !TextUtils.equals(previous.getClockTime(), state.getClockTime())) {
+            mClockDrawer.setTime(state.getClockTime());
+        }
+
+        // what onMeasure returns depends on the profile and on which icons are shown
+        boolean sizeChanged = profileChanged;
+        boolean othersChanged = profileChanged;
+        if (profileChanged || previous.shouldShowGps() != state.shouldShowGps()) {
+            setGps(state.shouldShowGps());
+            sizeChanged = true;
+            othersChanged = true;
+        }
+
+        if (profileChanged || previous.getNetworkIcon() != state.getNetworkIcon() || previous.shouldShowWifi() != state.shouldShowWifi()) {
+            setNetworkAndWifi(state.getNetworkIcon(), state.shouldShowWifi());
+            sizeChanged = true;
+            othersChanged = true;
+        }
+
+        if (profileChanged || previous.getBackgroundColour() != state.getBackgroundColour()) {
+            setPadding(0, 0, mStatusBarConfig.getRightPadding(), 0);
+            StatusBarView.applyBackground(this, mStatusBarConfig, state.getBackgroundColour());
+            othersChanged = true;
+        }
+
+        mAppliedState = state;
+
+        if (!othersChanged && mIsClockWidthReserved) {
+            // only the clock changed and its box keeps its size
+            invalidate(mClockLeft, mClockTop, mClockLeft + mClockWidth, mClockTop + mClockHeight);
+            return;
+        }
+
+        if (sizeChanged) {
+            requestLayout();
+        }
+        layoutElements(getWidth(), getHeight());
+        invalidate();
+    }
+
+    @Override
+    public StatusBarState getAppliedState() {
+        return mAppliedState;
+    }
+
+    @Override
+    public int getAppliedUpdateCount() {
+        return mAppliedUpdateCount;
+    }
+
+    @Override
+    public int getSkippedUpdateCount() {
+        return mSkippedUpdateCount;
+    }
+
+    @Override
+    public void setClockWidthReserved(boolean isWidthReserved) {
+        if (mIsClockWidthReserved != isWidthReserved) {
+            mIsClockWidthReserved = isWidthReserved;
+            layoutElements(getWidth(), getHeight());
+            invalidate();
+        }
+    }
+
+    /**
+     * Draws the battery the way {@link BatteryMeterView#setLegacyDrawing(boolean)} does.
+     */
+    public void setLegacyBatteryDrawing(boolean isLegacyDrawing) {
+        if (mBatteryDrawer.isLegacyDrawing() != isLegacyDrawing) {
+            mBatteryDrawer.setLegacyDrawing(isLegacyDrawing);
+            mBatteryBitmapDirty = true;
+            layoutElements(getWidth(), getHeight());
+            invalidate();
+        }
+    }
+
+    private void setGps(boolean shouldShowGps) {
+        mGpsSlot.mVisible = shouldShowGps;
+        if (shouldShowGps) {
+            mGpsSlot.setPadding(0, dpToPx(5), 0, dpToPx(5));
+            mGpsSlot.setDrawable(mStatusBarConfig.getGPSDrawable());
+        }
+    }
+
+    private void setNetworkAndWifi(int icon3G, boolean shouldShowWifi) {
+        m3gSlot.mVisible = icon3G >= 0;
+        if (icon3G >= 0) {
+            m3gSlot.setDrawable(mStatusBarConfig.getNetworkIconDrawable(shouldShowWifi ? NETWORK_STATUS_ICON_OFF : icon3G));
+            m3gSlot.setPadding(0, 0, mStatusBarConfig.getNetworkIconPaddingOffset(), 0);
+        }
+
+        mWifiSlot.mVisible = shouldShowWifi;
+        if (shouldShowWifi) {
+            if (icon3G >= 0) {
+                mWifiSlot.mRightMargin = dpToPx(-6);
+                mWifiSlot.setPadding(0, 0, mStatusBarConfig.getWifiPaddingOffset(), 0);
+            } else {
+                mWifiSlot.mRightMargin = 0;
+                mWifiSlot.setPadding(0, 0, dpToPx(2), 0);
+            }
+            mWifiSlot.setDrawable(mStatusBarConfig.getWifiDrawable());
+        }
+    }
+
+    // Note: must be dp to fit in status bar
+    private void setClockFont(Typeface font, float fontSize, int foregroundColour) {
+        mClockDrawer.setFont(font, TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, fontSize, getResources().getDisplayMetrics()), foregroundColour);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int contentHeight = Math.max(mBatteryHeight + mBatteryMarginBottom, mClockDrawer.getLineHeight());
+        contentHeight = Math.max(contentHeight, mGpsSlot.getDesiredHeight());
+        contentHeight = Math.max(contentHeight, mWifiSlot.getDesiredHeight());
+        contentHeight = Math.max(contentHeight, m3gSlot.getDesiredHeight());
+
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(contentHeight + getPaddingTop() + getPaddingBottom(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        layoutElements(w, h);
+    }
+
+    /**
+     * Mirrors the measure and layout passes of a horizontal LinearLayout with
+     * gravity center_vertical|right holding gps, wifi, network, battery and clock.
+     */
+    private void layoutElements(int width, int height) {
+        if (mAppliedState == null || width == 0 || height == 0) {
+            return;
+        }
+
+        final int paddingTop = getPaddingTop();
+        final int childSpace = height - paddingTop - getPaddingBottom();
+
+        int totalLength = 0;
+        totalLength = mGpsSlot.measure(childSpace, totalLength);
+        totalLength = mWifiSlot.measure(childSpace, totalLength);
+        totalLength = m3gSlot.measure(childSpace, totalLength);
+
+        int batteryHeight = mBatteryHeight;
+        totalLength = Math.max(totalLength, totalLength + mBatteryWidth + mBatteryMarginLeft);
+
+        if (mIsClockWidthReserved) {
+            mClockWidth = mClockDrawer.getReservedTextWidth() + mClockPaddingLeft;
+        } else {
+            mClockWidth = mClockDrawer.getTextWidth() + mClockPaddingLeft;
+        }
+        mClockHeight = Math.min(mClockDrawer.getLineHeight(), childSpace);
+        totalLength = Math.max(totalLength, totalLength + mClockWidth);
+
+        int childLeft = width - getPaddingRight() - totalLength;
+        childLeft = mGpsSlot.layout(childLeft, paddingTop, childSpace);
+        childLeft = mWifiSlot.layout(childLeft, paddingTop, childSpace);
+        childLeft = m3gSlot.layout(childLeft, paddingTop, childSpace);
+
+        childLeft += mBatteryMarginLeft;
+        mBatteryLeft = childLeft;
+        mBatteryTop = paddingTop + ((childSpace - batteryHeight) / 2) - mBatteryMarginBottom;
+        childLeft += mBatteryWidth;
+        if (mBatteryDrawer.isLegacyDrawing()) {
+            mBatteryDrawer.setBounds(0, 0, mBatteryWidth, mBatteryHeight);
+            mBatteryBitmapDirty = true;
+        } else {
+            mBatteryDrawer.setBounds(mBatteryLeft, mBatteryTop, mBatteryWidth, mBatteryHeight);
+        }
+
+        mClockLeft = childLeft;
+        mClockTop = paddingTop + ((childSpace - mClockHeight) / 2);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mAppliedState == null) {
+            return;
+        }
+
+        mGpsSlot.draw(canvas);
+        mWifiSlot.draw(canvas);
+        m3gSlot.draw(canvas);
+
+        drawBattery(canvas);
+
+        int save = canvas.save();
+        canvas.clipRect(mClockLeft + mClockPaddingLeft, mClockTop, mClockLeft + mClockWidth, mClockTop + mClockHeight);
+        // right aligned in a reserved box, which is the same as left aligned when it wraps the text
+        mClockDrawer.draw(canvas, mClockLeft + mClockWidth, mClockTop);
+        canvas.restoreToCount(save);
+    }
+
+    /**
+     * The legacy battery drawing needs a layer of its own, the same bitmap a software layer would
+     * give BatteryMeterView is kept here and only redrawn after a layout.
+     */
+    private void drawBattery(Canvas canvas) {
+        if (!mBatteryDrawer.isLegacyDrawing()) {
+            mBatteryDrawer.draw(canvas);
+            return;
+        }
+        if (mBatteryWidth <= 0 || mBatteryHeight <= 0) {
+            return;
+        }
+
+        if (mBatteryBitmap == null || mBatteryBitmap.getWidth() != mBatteryWidth || mBatteryBitmap.getHeight() != mBatteryHeight) {
+            mBatteryBitmap = Bitmap.createBitmap(mBatteryWidth, mBatteryHeight, Bitmap.Config.ARGB_8888);
+            mBatteryBitmapDirty = true;
+        }
+        if (mBatteryBitmapDirty) {
+            mBatteryBitmap.eraseColor(0);
+            mBatteryDrawer.draw(new Canvas(mBatteryBitmap));
+            mBatteryBitmapDirty = false;
+        }
+        canvas.drawBitmap(mBatteryBitmap, mBatteryLeft, mBatteryTop, null);
+    }
+
+    private int dpToPx(float dp) {
+        return (int) (dp * getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Same rounding as dimensions inflated from xml.
+     */
+    private int dimensionPixelSize(float dp) {
+        return (int) (TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getResources().getDisplayMetrics()) + 0.5f);
+    }
+
+    /**
+     * Wrap content ImageView with the default FIT_CENTER scale type.
+     */
+    private static class IconSlot {
+        boolean mVisible;
+        Drawable mDrawable;
+        int mPaddingLeft;
+        int mPaddingTop;
+        int mPaddingRight;
+        int mPaddingBottom;
+        int mRightMargin;
+
+        int mLeft;
+        int mTop;
+        int mWidth;
+        int mHeight;
+
+        private final Matrix mMatrix = new Matrix();
+        private final RectF mSrc = new RectF();
+        private final RectF mDst = new RectF();
+        private Matrix mDrawMatrix;
+
+        void setDrawable(Drawable drawable) {
+            mDrawable = drawable;
+        }
+
+        void setPadding(int left, int top, int right, int bottom) {
+            mPaddingLeft = left;
+            mPaddingTop = top;
+            mPaddingRight = right;
+            mPaddingBottom = bottom;
+        }
+
+        int getDesiredHeight() {
+            if (!mVisible) {
+                return 0;
+            }
+            return getDrawableHeight() + mPaddingTop + mPaddingBottom;
+        }
+
+        private int getDrawableWidth() {
+            return mDrawable == null ? 0 : Math.max(mDrawable.getIntrinsicWidth(), 1);
+        }
+
+        private int getDrawableHeight() {
+            return mDrawable == null ? 0 : Math.max(mDrawable.getIntrinsicHeight(), 1);
+        }
+
+        /**
+         * @return the total length including this slot
+         */
+        int measure(int maxHeight, int totalLength) {
+            if (!mVisible) {
+                return totalLength;
+            }
+
+            int dw = getDrawableWidth();
+            int dh = getDrawableHeight();
+            mWidth = dw + mPaddingLeft + mPaddingRight;
+            mHeight = Math.min(dh + mPaddingTop + mPaddingBottom, maxHeight);
+
+            int vw = mWidth - mPaddingLeft - mPaddingRight;
+            int vh = mHeight - mPaddingTop - mPaddingBottom;
+            if (mDrawable != null) {
+                mDrawable.setBounds(0, 0, dw, dh);
+            }
+            if (dw == vw && dh == vh) {
+                mDrawMatrix = null;
+            } else {
+                mSrc.set(0, 0, dw, dh);
+                mDst.set(0, 0, vw, vh);
+                mMatrix.setRectToRect(mSrc, mDst, Matrix.ScaleToFit.CENTER);
+                mDrawMatrix = mMatrix;
+            }
+
+            return Math.max(totalLength, totalLength + mWidth + mRightMargin);
+        }
+
+        /**
+         * @return the left edge of the next slot
+         */
+        int layout(int childLeft, int paddingTop, int childSpace) {
+            if (!mVisible) {
+                return childLeft;
+            }
+
+            mLeft = childLeft;
+            mTop = paddingTop + ((childSpace - mHeight) / 2);
+            return childLeft + mWidth + mRightMargin;
+        }
+
+        void draw(Canvas canvas) {
+            if (!mVisible || mDrawable == null) {
+                return;
+            }
+
+            int save = canvas.save();
+            canvas.translate(mLeft + mPaddingLeft, mTop + mPaddingTop);
+            if (mDrawMatrix != null) {
+                canvas.concat(mDrawMatrix);
+            }
+            mDrawable.draw(canvas);
+            canvas.restoreToCount(save);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.widgets;
+
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+/**
+ * Implemented by the views that can be added to the overlay window.
+ */
+public interface StatusBarRenderer {
+
+    /**
+     * Applies the state, skipping all work if it equals the last applied state.
+     */
+    void setStatusBarState(StatusBarState state);
+
+    StatusBarState getAppliedState();
+
+    int getAppliedUpdateCount();
+
+    int getSkippedUpdateCount();
+
+    /**
+     * Keeps room for the widest possible time so a ticking clock never moves the icons.
+     */
+    void setClockWidthReserved(boolean isWidthReserved);
+}
@@ -17,33 +17,61 @@
 package com.github.shareme.gwscleanstatusbar.widgets;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.os.Build;
+import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewStub;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
-import android.widget.TextView;
 
 import com.github.shareme.gwscleanstatusbar.R;
 import com.github.shareme.gwscleanstatusbar.util.StatusBarConfig;
+import com.github.shareme.gwscleanstatusbar.util.StatusBarState;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+public class StatusBarView extends LinearLayout implements StatusBarRenderer {
+    private static final String TAG = "StatusBarView";
+    // ViewParent.onDescendantInvalidated(View, View), API 26
+    private static Method sOnDescendantInvalidated;
 
-public class StatusBarView extends LinearLayout {
     private static final int NETWORK_STATUS_ICON_OFF = 0;
-    private final ImageView m3gView;
-    private final ImageView mWifiView;
-    private final ImageView mGPSView;
-    private final TextView mTimeTextView;
+    private final ViewStub m3gStub;
+    private final ViewStub mWifiStub;
+    private final ViewStub mGPSStub;
+    // null until first shown
+    private ImageView m3gView;
+    private ImageView mWifiView;
+    private ImageView mGPSView;
+    private final ClockView mClockView;
     private final BatteryMeterView mBatteryView;
 
+    private StatusBarConfig mStatusBarConfig;
+    private StatusBarState mAppliedState;
+    private int mAppliedUpdateCount;
+    private int mSkippedUpdateCount;
+
+    private boolean mIsBaked;
+    private boolean mIsBakedBitmapDirty;
+    private Bitmap mBakedBitmap;
+    private Canvas mBakedCanvas;
+
     public StatusBarView(Context context) {
         this(context, null, 0);
     }
@@ -60,45 +88,221 @@ public class StatusBarView extends LinearLayout {
 
         LayoutInflater.from(context).inflate(R.layout.status_bar, this);
 
-        mTimeTextView = (TextView) findViewById(R.id.status_bar_clock_textview);
+        mClockView = (ClockView) findViewById(R.id.status_bar_clock_textview);
         mBatteryView = (BatteryMeterView) findViewById(R.id.status_bar_battery);
-        m3gView = (ImageView) findViewById(R.id.status_bar_3g);
-        mWifiView = (ImageView) findViewById(R.id.status_bar_wifi);
-        mGPSView = (ImageView) findViewById(R.id.status_bar_gps);
+        m3gStub = (ViewStub) findViewById(R.id.status_bar_3g_stub);
+        mWifiStub = (ViewStub) findViewById(R.id.status_bar_wifi_stub);
+        mGPSStub = (ViewStub) findViewById(R.id.status_bar_gps_stub);
     }
 
-    @SuppressWarnings("deprecation")
-    public void setStatusBarConfig(StatusBarConfig statusBarConfig, int backgroundColour, String clockTime, boolean shouldShowWifi, int icon3G, boolean shouldShowGps) {
-        setPadding(0, 0, statusBarConfig.getRightPadding(), 0);
-        statusBarConfig.setBatteryViewDimensions(mBatteryView);
+    /**
+     * Applies the state, touching only the views whose inputs differ from the last applied state.
+     */
+    @Override
+    public void setStatusBarState(StatusBarState state) {
+        StatusBarState previous = mAppliedState;
+        if (state.equals(previous)) {
+            mSkippedUpdateCount++;
+            return;
+        }
+        mAppliedUpdateCount++;
+
+        boolean profileChanged = !state.hasSameProfile(previous);
+        if (profileChanged) {
+            mStatusBarConfig = new StatusBarConfig(state.getApiLevel(), state.isKitKatGradientEnabled(), getResources(), getContext().getAssets());
+
+            mStatusBarConfig.setBatteryViewDimensions(mBatteryView);
+            mBatteryView.requestLayout();
+            setFont(mStatusBarConfig.getFont(), mStatusBarConfig.getFontSize(), mStatusBarConfig.getForegroundColour());
+            mBatteryView.setBatteryColour(mStatusBarConfig.getForegroundColour());
+        }
+
+        if (previous == null || !TextUtils.equals(previous.getClockTime(), state.getClockTime())) {
+            setClockTime(state.getClockTime());
+        }
+
+        if (profileChanged || previous.shouldShowGps() != state.shouldShowGps()) {
+            setGps(state.shouldShowGps());
+        }
+
+        if (profileChanged || previous.getNetworkIcon() != state.getNetworkIcon() || previous.shouldShowWifi() != state.shouldShowWifi()) {
+            setNetworkAndWifi(state.getNetworkIcon(), state.shouldShowWifi());
+        }
+
+        if (profileChanged || previous.getBackgroundColour() != state.getBackgroundColour()) {
+            applyBackground(state.getBackgroundColour());
+        }
+
+        mAppliedState = state;
+
+        markBakedBitmapDirty();
+    }
+
+    /**
+     * In baked mode the whole bar is drawn once into a bitmap after each applied state and
+     * only that bitmap is drawn until the next one.
+     */
+    public void setBaked(boolean isBaked) {
+        if (mIsBaked == isBaked) {
+            return;
+        }
+        mIsBaked = isBaked;
+        mIsBakedBitmapDirty = true;
+        if (!isBaked) {
+            releaseBakedBitmap();
+        }
+        invalidate();
+    }
+
+    public boolean isBaked() {
+        return mIsBaked;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (!mIsBaked || getWidth() == 0 || getHeight() == 0) {
+            super.draw(canvas);
+            return;
+        }
+
+        if (mBakedBitmap == null || mBakedBitmap.getWidth() != getWidth() || mBakedBitmap.getHeight() != getHeight()) {
+            releaseBakedBitmap();
+            mBakedBitmap = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            mBakedCanvas = new Canvas(mBakedBitmap);
+            mIsBakedBitmapDirty = true;
+        }
+        if (mIsBakedBitmapDirty) {
+            mBakedBitmap.eraseColor(Color.TRANSPARENT);
+            super.draw(mBakedCanvas);
+            mIsBakedBitmapDirty = false;
+        }
+        canvas.drawBitmap(mBakedBitmap, 0, 0, null);
+    }
+
+    /**
+     * Children invalidating themselves only redraw their own display lists, in baked mode the
+     * bitmap has to be redrawn for them to show.
+     */
+    @Override
+    public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+        markBakedBitmapDirty();
+        return super.invalidateChildInParent(location, dirty);
+    }
+
+    /**
+     * Takes the place of {@link #invalidateChildInParent(int[], Rect)} under hardware acceleration
+     * from API 26, which the compile SDK does not have so there is no super to call. Unless baked
+     * the change is passed on to the parent as the super call would, so a child invalidating
+     * itself still only re-records that child.
+     */
+    public void onDescendantInvalidated(View child, View target) {
+        if (mIsBaked) {
+            markBakedBitmapDirty();
+            return;
+        }
+
+        ViewParent parent = getParent();
+        if (parent == null) {
+            return;
+        }
+        try {
+            if (sOnDescendantInvalidated == null) {
+                sOnDescendantInvalidated = ViewParent.class.getMethod("onDescendantInvalidated", View.class, View.class);
+            }
+            sOnDescendantInvalidated.invoke(parent, this, target);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            Log.w(TAG, "Unable to pass on the invalidation", e);
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+
+        // a child can move or resize without this view changing size
+        markBakedBitmapDirty();
+    }
+
+    private void markBakedBitmapDirty() {
+        if (mIsBaked && !mIsBakedBitmapDirty) {
+            mIsBakedBitmapDirty = true;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        releaseBakedBitmap();
+    }
+
+    private void releaseBakedBitmap() {
+        if (mBakedBitmap != null) {
+            mBakedBitmap.recycle();
+            mBakedBitmap = null;
+            mBakedCanvas = null;
+        }
+    }
+
+    @Override
+    public void setClockWidthReserved(boolean isWidthReserved) {
+        if (mClockView.isWidthReserved() != isWidthReserved) {
+            mClockView.setWidthReserved(isWidthReserved);
+            markBakedBitmapDirty();
+        }
+    }
+
+    @Override
+    public StatusBarState getAppliedState() {
+        return mAppliedState;
+    }
 
-        setClockTime(clockTime);
-        setFont(statusBarConfig.getFont());
-        setFontSize(statusBarConfig.getFontSize());
-        setForegroundColour(statusBarConfig.getForegroundColour());
+    @Override
+    public int getAppliedUpdateCount() {
+        return mAppliedUpdateCount;
+    }
 
+    @Override
+    public int getSkippedUpdateCount() {
+        return mSkippedUpdateCount;
+    }
+
+    private void setGps(boolean shouldShowGps) {
         if (shouldShowGps) {
+            if (mGPSView == null) {
+                mGPSView = (ImageView) mGPSStub.inflate();
+            }
             mGPSView.setVisibility(View.VISIBLE);
             mGPSView.setPadding(0, dpToPx(5), 0, dpToPx(5));
-            mGPSView.setImageDrawable(statusBarConfig.getGPSDrawable());
-        } else {
+            mGPSView.setImageDrawable(mStatusBarConfig.getGPSDrawable());
+        } else if (mGPSView != null) {
             mGPSView.setVisibility(View.GONE);
         }
+    }
 
+    private void setNetworkAndWifi(int icon3G, boolean shouldShowWifi) {
         if(icon3G >= 0) {
+            if (m3gView == null) {
+                m3gView = (ImageView) m3gStub.inflate();
+            }
             m3gView.setVisibility(View.VISIBLE);
-            m3gView.setImageDrawable(statusBarConfig.getNetworkIconDrawable(icon3G));
-            m3gView.setPadding(0, 0, statusBarConfig.getNetworkIconPaddingOffset(), 0);
-        } else {
+            m3gView.setImageDrawable(mStatusBarConfig.getNetworkIconDrawable(icon3G));
+            m3gView.setPadding(0, 0, mStatusBarConfig.getNetworkIconPaddingOffset(), 0);
+        } else if (m3gView != null) {
             m3gView.setVisibility(View.GONE);
         }
 
         if(shouldShowWifi) {
+            if (mWifiView == null) {
+                mWifiView = (ImageView) mWifiStub.inflate();
+            }
             if(icon3G >= 0) {
-                m3gView.setImageDrawable(statusBarConfig.getNetworkIconDrawable(NETWORK_STATUS_ICON_OFF));
+                m3gView.setImageDrawable(mStatusBarConfig.getNetworkIconDrawable(NETWORK_STATUS_ICON_OFF));
                 MarginLayoutParams params = (MarginLayoutParams) mWifiView.getLayoutParams();
                 params.setMargins(0, 0, dpToPx(-6), 0);
-                mWifiView.setPadding(0, 0, statusBarConfig.getWifiPaddingOffset(), 0);
+                mWifiView.setPadding(0, 0, mStatusBarConfig.getWifiPaddingOffset(), 0);
                 mWifiView.setLayoutParams(params);
             } else {
                 LayoutParams params = new LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
@@ -106,24 +310,35 @@ public class StatusBarView extends LinearLayout {
                 mWifiView.setLayoutParams(params);
             }
             mWifiView.setVisibility(View.VISIBLE);
-            mWifiView.setImageDrawable(statusBarConfig.getWifiDrawable());
-        } else {
+            mWifiView.setImageDrawable(mStatusBarConfig.getWifiDrawable());
+        } else if (mWifiView != null) {
             mWifiView.setVisibility(View.GONE);
         }
+    }
 
+    private void applyBackground(int backgroundColour) {
+        setPadding(0, 0, mStatusBarConfig.getRightPadding(), 0);
+        applyBackground(this, mStatusBarConfig, backgroundColour);
+    }
+
+    /**
+     * Sets the plain or KitKat gradient background, adding the drawable padding to the current padding.
+     */
+    @SuppressWarnings("deprecation")
+    static void applyBackground(View view, StatusBarConfig statusBarConfig, int backgroundColour) {
         if (statusBarConfig.shouldDrawGradient()) {
             //TODO: getDrawable depreciated
-            Drawable[] layers = {new ColorDrawable(backgroundColour), getResources().getDrawable(R.drawable.status_background)};
+            Drawable[] layers = {new ColorDrawable(backgroundColour), view.getResources().getDrawable(R.drawable.status_background)};
             LayerDrawable layerDrawable = new LayerDrawable(layers);
 
-            setBackgroundAndKeepPadding(this, layerDrawable);
+            setBackgroundAndKeepPadding(view, layerDrawable);
         } else {
-            setBackgroundColor(backgroundColour);
+            view.setBackgroundColor(backgroundColour);
         }
     }
 
     @SuppressWarnings("deprecation")
-    private void setBackgroundAndKeepPadding(View view, Drawable backgroundDrawable) {
+    private static void setBackgroundAndKeepPadding(View view, Drawable backgroundDrawable) {
         Rect drawablePadding = new Rect();
         backgroundDrawable.getPadding(drawablePadding);
         int top = view.getPaddingTop() + drawablePadding.top;
@@ -145,20 +360,11 @@ public class StatusBarView extends LinearLayout {
     }
 
     private void setClockTime(String time) {
-        mTimeTextView.setText(time);
-    }
-
-    private void setFont(Typeface font) {
-        mTimeTextView.setTypeface(font);
-    }
-
-    // Note: must be dp to fit in status bar
-    private void setFontSize(float fontSize) {
-        mTimeTextView.setTextSize(TypedValue.COMPLEX_UNIT_DIP, fontSize);
+        mClockView.setTime(time);
     }
 
-    private void setForegroundColour(int foregroundColour) {
-        mTimeTextView.setTextColor(foregroundColour);
-        mBatteryView.setBatteryColour(foregroundColour);
+    // Note: size must be dp to fit in status bar
+    private void setFont(Typeface font, float fontSize, int foregroundColour) {
+        mClockView.setFont(font, TypedValue.COMPLEX_UNIT_DIP, fontSize, foregroundColour);
     }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar;
+
+import android.content.Intent;
+import android.view.Gravity;
+import android.view.WindowManager;
+
+import com.github.shareme.gwscleanstatusbar.util.ApplyLatencyStats;
+import com.github.shareme.gwscleanstatusbar.util.TestProfiles;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class CleanStatusBarServiceDumpTest {
+    private static final int FRAME_MILLIS = 16;
+    private static final String[] STATE_FIELDS = {"apiLevel", "kitKatGradient", "backgroundColour", "clockTime", "wifi", "networkIcon", "gps"};
+
+    private CleanStatusBarService mService;
+
+    @Before
+    public void setUp() throws Exception {
+        TestProfiles.installLollipop();
+        // every frame callback gets a later frame time than the one before
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+        ApplyLatencyStats.getInstance().reset();
+        mService = Robolectric.setupService(CleanStatusBarService.class);
+    }
+
+    @After
+    public void tearDown() {
+        mService.onDestroy();
+        ApplyLatencyStats.getInstance().reset();
+        TestProfiles.uninstall();
+    }
+
+    @Test
+    public void everyLineIsAUniqueKeyValuePair() {
+        Map<String, String> values = dump();
+
+        assertTrue(values.containsKey("state.applied"));
+        assertTrue(values.containsKey("renderer.applied"));
+        assertTrue(values.containsKey("renderer.skipped"));
+        assertTrue(values.containsKey("cache.drawable.hitRate"));
+        assertTrue(values.containsKey("cache.typeface.hitRate"));
+        assertTrue(values.containsKey("latency.apply.recent"));
+        assertTrue(values.containsKey("latency.total.p99"));
+    }
+
+    @Test
+    public void keysComeInTheDocumentedOrder() {
+        List<String> expected = new ArrayList<>(Arrays.asList("state.applied",
+                "state.requested.apiLevel", "state.requested.kitKatGradient", "state.requested.backgroundColour",
+                "state.requested.clockTime", "state.requested.wifi", "state.requested.networkIcon", "state.requested.gps",
+                "displays", "renderer", "renderer.applied", "renderer.skipped",
+                "mailbox.posted", "mailbox.applied", "mailbox.coalesced",
+                "cache.drawable.size", "cache.drawable.hits", "cache.drawable.misses", "cache.drawable.hitRate",
+                "cache.typeface.size", "cache.typeface.hits", "cache.typeface.misses", "cache.typeface.hitRate",
+                "window",
+                "scenario", "scenario.posted", "scenario.drawn", "scenario.superseded", "scenario.stepsPerSecond"));
+        for (String stage : new String[]{"intent", "queue", "apply", "draw", "total", "first_frame"}) {
+            for (String value : new String[]{"count", "p50", "p90", "p99", "max", "recent"}) {
+                expected.add("latency." + stage + "." + value);
+            }
+        }
+
+        assertEquals(expected, new ArrayList<>(dump().keySet()));
+    }
+
+    @Test
+    public void requestedStateIsDumpedBeforeTheFirstFrame() {
+        Map<String, String> values = dump();
+
+        assertEquals("none", values.get("state.applied"));
+        assertEquals("none", values.get("window"));
+        assertEquals("0", values.get("displays"));
+        assertEquals("idle", values.get("scenario"));
+        assertFalse(values.containsKey("state.requested"));
+        assertTrue(values.containsKey("state.requested.apiLevel"));
+        assertTrue(values.get("state.requested.backgroundColour").matches("#[0-9a-f]{8}"));
+    }
+
+    @Test
+    public void startedServiceDumpsWhatItDrew() {
+        Intent intent = new Intent(RuntimeEnvironment.application, CleanStatusBarService.class)
+                .putExtra(CleanStatusBarService.EXTRA_REQUESTED_AT_NANOS, System.nanoTime() - 1000000);
+        mService.onStartCommand(intent, 0, 1);
+        // one frame applies the state, the next one reports it drawn
+        for (int i = 0; i < 3; i++) {
+            ShadowLooper.idleMainLooper(FRAME_MILLIS * 2);
+        }
+
+        Map<String, String> values = dump();
+
+        assertFalse(values.containsKey("state.applied"));
+        for (String field : STATE_FIELDS) {
+            assertEquals(field, values.get("state.requested." + field), values.get("state.applied." + field));
+        }
+        assertEquals("1", values.get("renderer.applied"));
+        assertEquals("0", values.get("renderer.skipped"));
+        assertEquals("1", values.get("mailbox.posted"));
+        assertEquals("1", values.get("mailbox.applied"));
+
+        assertFalse(values.containsKey("window"));
+        assertEquals(String.valueOf(WindowManager.LayoutParams.MATCH_PARENT), values.get("window.width"));
+        assertEquals(String.valueOf(WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY), values.get("window.type"));
+        assertEquals("0x" + Integer.toHexString(Gravity.TOP), values.get("window.gravity"));
+
+        for (String stage : new String[]{"intent", "queue", "apply", "draw", "total", "first_frame"}) {
+            assertEquals(stage, "1", values.get("latency." + stage + ".count"));
+            assertTrue(stage, values.get("latency." + stage + ".recent").matches("\\d+"));
+        }
+        // requested a millisecond before it was sent
+        assertTrue(Long.parseLong(values.get("latency.intent.recent")) >= 1000);
+    }
+
+    @Test
+    public void recentLatenciesAreOldestFirst() {
+        ApplyLatencyStats stats = ApplyLatencyStats.getInstance();
+        stats.record(ApplyLatencyStats.STAGE_APPLY, 0, 3000);
+        stats.record(ApplyLatencyStats.STAGE_APPLY, 0, 1000);
+        stats.record(ApplyLatencyStats.STAGE_APPLY, 0, 2000);
+
+        Map<String, String> values = dump();
+
+        assertEquals("3", values.get("latency.apply.count"));
+        assertEquals("3,1,2", values.get("latency.apply.recent"));
+        assertEquals("", values.get("latency.draw.recent"));
+    }
+
+    @Test
+    public void hitRatesHaveThreeDecimals() {
+        Map<String, String> values = dump();
+
+        assertTrue(values.get("cache.drawable.hitRate").matches("\\d\\.\\d{3}"));
+        assertTrue(values.get("cache.typeface.hitRate").matches("\\d\\.\\d{3}"));
+    }
+
+    private Map<String, String> dump() {
+        StringWriter output = new StringWriter();
+        mService.dump(null, new PrintWriter(output), new String[0]);
+
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String line : output.toString().split("\n")) {
+            int separator = line.indexOf('=');
+            assertTrue(line, separator > 0);
+            String key = line.substring(0, separator);
+            assertFalse("Duplicate key " + key, values.containsKey(key));
+            values.put(key, line.substring(separator + 1));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.shareme.gwscleanstatusbar.util;
+
+import com.github.shareme.gwscleanstatusbar.core.ProfileCompiler;
+import com.github.shareme.gwscleanstatusbar.core.ProfileIndex;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfileTable;
+
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+/**
+ * Profile tables for Robolectric tests, which do not get the profile asset the build compiles.
+ */
+public final class TestProfiles {
+    private static final String LOLLIPOP_PROFILE = "[21]\n"
+            + "label = Lollipop (v21)\n"
+            + "foreground_colour = #ffffffff\n"
+            + "font = " + StatusBarConfig.FONT_ROBOTO_MEDIUM + "\n"
+            + "font_size = 14\n"
+            + "right_padding = 8\n"
+            + "battery_width = 10\n"
+            + "battery_height = 15.5\n"
+            + "battery_bottom_margin = 0\n"
+            + "network_icon_padding_offset = 3\n"
+            + "wifi_padding_offset = 4\n"
+            + "network_icons = network_off_l network_g_l network_e_l network_3g_l network_h_l network_lte_l network_roam_l\n"
+            + "wifi_icon = wifi_full_l\n"
+            + "gps_icon = gps_19\n";
+
+    private TestProfiles() {
+    }
+
+    /**
+     * Installs a table holding only the Lollipop profile at the application's density.
+     */
+    public static void installLollipop() throws IOException {
+        ByteArrayOutputStream profiles = new ByteArrayOutputStream();
+        ProfileCompiler.compile(new StringReader(LOLLIPOP_PROFILE), profiles);
+        float density = RuntimeEnvironment.application.getResources().getDisplayMetrics().density;
+        StatusBarConfig.setProfileTable(new StatusBarProfileTable(new ProfileIndex(ByteBuffer.wrap(profiles.toByteArray())), density));
+    }
+
+    public static void uninstall() {
+        StatusBarConfig.setProfileTable(null);
+    }
+}
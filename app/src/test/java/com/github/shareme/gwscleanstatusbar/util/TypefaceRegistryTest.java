@@ -0,0 +1,76 @@
+package com.github.shareme.gwscleanstatusbar.util;
+
+import android.content.Intent;
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+
+import com.github.shareme.gwscleanstatusbar.BuildConfig;
+import com.github.shareme.gwscleanstatusbar.CleanStatusBarService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class TypefaceRegistryTest {
+    private static final int FRAME_MILLIS = 16;
+
+    private final AtomicInteger mLoadCount = new AtomicInteger();
+    private final Typeface mTypeface = mock(Typeface.class);
+    private TypefaceRegistry mOriginal;
+
+    @Before
+    public void setUp() throws Exception {
+        TestProfiles.installLollipop();
+        // every frame callback gets a later frame time than the one before
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+
+        mOriginal = TypefaceRegistry.getInstance();
+        TypefaceRegistry.setInstance(new TypefaceRegistry(new TypefaceRegistry.Loader() {
+            @Override
+            public Typeface load(AssetManager assets, String path) {
+                mLoadCount.incrementAndGet();
+                return mTypeface;
+            }
+        }));
+    }
+
+    @After
+    public void tearDown() {
+        TestProfiles.uninstall();
+        TypefaceRegistry.setInstance(mOriginal);
+    }
+
+    @Test
+    public void fontAssetIsOpenedOnceAcrossStartCommands() throws Exception {
+        CleanStatusBarService service = Robolectric.setupService(CleanStatusBarService.class);
+        try {
+            for (int i = 0; i < 100; i++) {
+                service.onStartCommand(new Intent(RuntimeEnvironment.application, CleanStatusBarService.class), 0, i + 1);
+                ShadowLooper.idleMainLooper(FRAME_MILLIS * 2);
+            }
+            assertNotNull("no state was applied", service.getAppliedState());
+            // the prewarmer runs one task at a time, this one waits out the service's own
+            StatusBarPrewarmer.prewarm(RuntimeEnvironment.application, service.getAppliedState()).get();
+
+            assertEquals(1, mLoadCount.get());
+            assertEquals(1, TypefaceRegistry.getInstance().size());
+        } finally {
+            service.onDestroy();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.benchmarks;
+
+import com.github.shareme.gwscleanstatusbar.core.BatteryGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The battery meter layout BatteryMeterDrawer redoes on every size or padding change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatteryGeometryBenchmark {
+    // 10.5dp x 16dp and 10dp x 15.5dp from hdpi to xxxhdpi
+    private static final int[] WIDTHS = {15, 21, 31, 42, 15, 20, 30, 40};
+    private static final int[] HEIGHTS = {24, 32, 48, 64, 23, 31, 46, 62};
+
+    private final float[] mGeometry = new float[BatteryGeometry.SIZE];
+    private int mIndex;
+
+    @Benchmark
+    public float[] layout() {
+        mIndex = (mIndex + 1) % WIDTHS.length;
+        BatteryGeometry.layout(0, 0, WIDTHS[mIndex], HEIGHTS[mIndex], mGeometry);
+        return mGeometry;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.benchmarks;
+
+import com.github.shareme.gwscleanstatusbar.core.NamedColour;
+import com.github.shareme.gwscleanstatusbar.core.PaletteCodec;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and write cost of a stored palette, {@link PaletteCodec} against the reflective Gson
+ * JSON ColourPreference used before it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaletteCodecBenchmark {
+    private static final Type LEGACY_TYPE = new TypeToken<ArrayList<LegacyColour>>() {}.getType();
+
+    @Param({"10", "1000", "100000"})
+    public int mSize;
+
+    private final Gson mGson = new Gson();
+
+    private List<NamedColour> mColours;
+    private ArrayList<LegacyColour> mLegacyColours;
+    private String mEncoded;
+    private String mJson;
+
+    @Setup
+    public void setUp() {
+        mColours = createPalette(mSize);
+        mLegacyColours = new ArrayList<>(mSize);
+        for (NamedColour colour : mColours) {
+            mLegacyColours.add(new LegacyColour(colour.getName(), colour.getValue()));
+        }
+        mEncoded = PaletteCodec.encode(mColours);
+        mJson = mGson.toJson(mLegacyColours);
+    }
+
+    static List<NamedColour> createPalette(int size) {
+        Random random = new Random(size);
+        List<NamedColour> colours = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            colours.add(new NamedColour("Brand colour " + Integer.toHexString(random.nextInt()), random.nextInt()));
+        }
+        return colours;
+    }
+
+    @Benchmark
+    public List<NamedColour> parseCodec() {
+        return PaletteCodec.decode(mEncoded);
+    }
+
+    @Benchmark
+    public List<LegacyColour> parseGson() {
+        return mGson.fromJson(mJson, LEGACY_TYPE);
+    }
+
+    @Benchmark
+    public List<NamedColour> migrateGsonJson() {
+        return PaletteCodec.decode(mJson);
+    }
+
+    @Benchmark
+    public String writeCodec() {
+        return PaletteCodec.encode(mColours);
+    }
+
+    @Benchmark
+    public String writeGson() {
+        return mGson.toJson(mLegacyColours);
+    }
+
+    /**
+     * Field for field copy of the Colour class ColourPreference used to serialise with Gson.
+     */
+    static class LegacyColour {
+        int mColourValue;
+        String mColourName;
+
+        LegacyColour(String colourName, int colourValue) {
+            mColourName = colourName;
+            mColourValue = colourValue;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.benchmarks;
+
+import com.github.shareme.gwscleanstatusbar.core.NamedColour;
+import com.github.shareme.gwscleanstatusbar.core.PaletteIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding to and filtering a large palette, {@link PaletteIndex} against the copy and full sort
+ * PaletteRepository did before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaletteIndexBenchmark {
+    @Param({"1000", "50000"})
+    public int mSize;
+
+    private List<NamedColour> mSorted;
+    private NamedColour mNewColour;
+
+    @Setup
+    public void setUp() {
+        mSorted = PaletteCodecBenchmark.createPalette(mSize);
+        Collections.sort(mSorted);
+        mNewColour = new NamedColour("Brand colour 8000", 0xff336699);
+    }
+
+    @Benchmark
+    public List<NamedColour> insertIndexed() {
+        return PaletteIndex.insert(mSorted, mNewColour);
+    }
+
+    @Benchmark
+    public List<NamedColour> insertSortAll() {
+        List<NamedColour> colours = new ArrayList<>(mSorted);
+        colours.add(mNewColour);
+        Collections.sort(colours);
+        return colours;
+    }
+
+    @Benchmark
+    public List<NamedColour> filterByName() {
+        return PaletteIndex.filter(mSorted, "brand colour 8");
+    }
+
+    @Benchmark
+    public List<NamedColour> filterByHex() {
+        return PaletteIndex.filter(mSorted, "#ff3");
+    }
+}
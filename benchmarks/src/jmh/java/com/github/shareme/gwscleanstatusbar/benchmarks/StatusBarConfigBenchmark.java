@@ -0,0 +1,243 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.benchmarks;
+
+import com.github.shareme.gwscleanstatusbar.core.ProfileCompiler;
+import com.github.shareme.gwscleanstatusbar.core.ProfileIndex;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfile;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfileTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving every per API level value a config apply reads, from the {@link StatusBarProfileTable}
+ * StatusBarConfig uses now against the switches it had before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusBarConfigBenchmark {
+    private static final int[] NETWORK_ICONS = {0, 1, 2, 3, 4, 5, 99};
+
+    @Param({"16", "19", "21"})
+    public int mApiLevel;
+
+    @Param({"3.0"})
+    public float mDensity;
+
+    private byte[] mCompiledProfiles;
+    private StatusBarProfileTable mTable;
+
+    @Setup
+    public void setUp() throws IOException {
+        Reader source = new InputStreamReader(getClass().getResourceAsStream("/status_bar_profiles.txt"), "UTF-8");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ProfileCompiler.compile(source, out);
+            mCompiledProfiles = out.toByteArray();
+        } finally {
+            source.close();
+        }
+        mTable = new StatusBarProfileTable(new ProfileIndex(ByteBuffer.wrap(mCompiledProfiles)), mDensity);
+    }
+
+    /**
+     * Opening the index and building the one profile in use, what a cold start pays.
+     */
+    @Benchmark
+    public StatusBarProfile loadProfile() {
+        return new StatusBarProfileTable(new ProfileIndex(ByteBuffer.wrap(mCompiledProfiles)), mDensity).get(mApiLevel);
+    }
+
+    @Benchmark
+    public void resolveTable(Blackhole blackhole) {
+        StatusBarProfile profile = mTable.get(mApiLevel);
+        blackhole.consume(profile.getForegroundColour(true));
+        blackhole.consume(profile.getFontSize());
+        blackhole.consume(profile.getRightPadding());
+        blackhole.consume(profile.getBatteryWidth());
+        blackhole.consume(profile.getBatteryHeight());
+        blackhole.consume(profile.getBatteryBottomMargin());
+        blackhole.consume(profile.getNetworkIconPaddingOffset());
+        blackhole.consume(profile.getWifiPaddingOffset());
+        blackhole.consume(profile.getWifiIcon());
+        blackhole.consume(profile.getGpsIcon());
+        for (int icon : NETWORK_ICONS) {
+            blackhole.consume(profile.getNetworkIcon(icon));
+        }
+    }
+
+    @Benchmark
+    public void resolveLegacy(Blackhole blackhole) {
+        LegacyStatusBarConfig config = new LegacyStatusBarConfig(mApiLevel, true, mDensity);
+        blackhole.consume(config.getForegroundColour());
+        blackhole.consume(config.getFontSize());
+        blackhole.consume(config.getRightPadding());
+        blackhole.consume(config.getBatteryViewWidth());
+        blackhole.consume(config.getBatteryViewHeight());
+        blackhole.consume(config.getBatteryViewBottomMargin());
+        blackhole.consume(config.getNetworkIconPaddingOffset());
+        blackhole.consume(config.getWifiPaddingOffset());
+        blackhole.consume(config.getWifiIcon());
+        blackhole.consume(config.getGpsIcon());
+        for (int icon : NETWORK_ICONS) {
+            blackhole.consume(config.getNetworkIcon(icon));
+        }
+    }
+
+    /**
+     * Copy of the switches StatusBarConfig had before the profile table, with Resources swapped for a density and the
+     * resource ids for their index among the icons.
+     */
+    static final class LegacyStatusBarConfig {
+        private static final int KITKAT = 19;
+        private static final int LOLLIPOP = 21;
+
+        private static final int COLOUR_JELLYBEAN = 0xff33b5e5;
+        private static final int COLOUR_KITKAT_GRADIENT = 0xffffffff;
+        private static final int COLOUR_KITKAT_DEFAULT = 0xffbfbfbf;
+        private static final int COLOUR_WHITE = 0xffffffff;
+
+        private final int mApiLevel;
+        private final boolean mIsKitKatGradientEnabled;
+        private final float mDensity;
+
+        LegacyStatusBarConfig(int apiLevel, boolean isKitKatGradientEnabled, float density) {
+            mApiLevel = apiLevel;
+            mIsKitKatGradientEnabled = isKitKatGradientEnabled;
+            mDensity = density;
+        }
+
+        boolean shouldDrawGradient() {
+            return mIsKitKatGradientEnabled && mApiLevel == KITKAT;
+        }
+
+        int getForegroundColour() {
+            int colour = COLOUR_JELLYBEAN;
+            switch (mApiLevel) {
+                case KITKAT:
+                    colour = shouldDrawGradient() ? COLOUR_KITKAT_GRADIENT : COLOUR_KITKAT_DEFAULT;
+                    break;
+                case LOLLIPOP:
+                    colour = COLOUR_WHITE;
+                    break;
+            }
+            return colour;
+        }
+
+        private boolean isAndroidL() {
+            return mApiLevel == LOLLIPOP;
+        }
+
+        float getFontSize() {
+            if (isAndroidL()) {
+                return 14f;
+            }
+            return 16.0f;
+        }
+
+        int getNetworkIcon(int icon) {
+            int offset = isAndroidL() ? 7 : 0;
+            switch (icon) {
+                case 1:
+                case 2:
+                case 3:
+                case 4:
+                case 5:
+                    return offset + icon;
+                case 99:
+                    return offset + 6;
+                default:
+                    return offset;
+            }
+        }
+
+        int getGpsIcon() {
+            return mApiLevel >= KITKAT ? 1 : 0;
+        }
+
+        int getWifiIcon() {
+            return isAndroidL() ? 1 : 0;
+        }
+
+        int getRightPadding() {
+            if (isAndroidL()) {
+                return dpToPx(8);
+            }
+            return dpToPx(6);
+        }
+
+        private int dpToPx(float dp) {
+            return (int) (dp * mDensity);
+        }
+
+        int getBatteryViewWidth() {
+            if (isAndroidL()) {
+                return dpToPx(10);
+            }
+            return dpToPx(10.5f);
+        }
+
+        int getBatteryViewHeight() {
+            if (isAndroidL()) {
+                return dpToPx(15.5f);
+            }
+            return dpToPx(16);
+        }
+
+        int getNetworkIconPaddingOffset() {
+            if (isAndroidL()) {
+                return dpToPx(3);
+            }
+            return 0;
+        }
+
+        int getWifiPaddingOffset() {
+            if (isAndroidL()) {
+                return dpToPx(4);
+            }
+            return 0;
+        }
+
+        int getBatteryViewBottomMargin() {
+            if (isAndroidL()) {
+                return 0;
+            }
+            return dpToPx(0.33f);
+        }
+    }
+}
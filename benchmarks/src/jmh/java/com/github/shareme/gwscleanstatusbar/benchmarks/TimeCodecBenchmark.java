@@ -0,0 +1,132 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.benchmarks;
+
+import com.github.shareme.gwscleanstatusbar.core.TimeCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The packed {@link TimeCodec} against the String path TimePreference used before it.
+ * Run with -prof gc to see the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeCodecBenchmark {
+
+    @Param({"false", "true"})
+    public boolean mIs24HourFormat;
+
+    private String[] mStoredTimes;
+    private int[] mMinutesOfDay;
+    private final char[] mBuffer = new char[TimeCodec.MAX_FORMATTED_LENGTH];
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mMinutesOfDay = new int[TimeCodec.MINUTES_PER_DAY];
+        mStoredTimes = new String[TimeCodec.MINUTES_PER_DAY];
+        for (int i = 0; i < TimeCodec.MINUTES_PER_DAY; i++) {
+            mMinutesOfDay[i] = i;
+            mStoredTimes[i] = TimeCodec.toString(i, true);
+        }
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) % TimeCodec.MINUTES_PER_DAY;
+        return mIndex;
+    }
+
+    @Benchmark
+    public void parseLegacy(Blackhole blackhole) {
+        String time = mStoredTimes[next()];
+        blackhole.consume(LegacyTime.getHour(time));
+        blackhole.consume(LegacyTime.getMinute(time));
+    }
+
+    @Benchmark
+    public int parseCodec() {
+        return TimeCodec.parse(mStoredTimes[next()]);
+    }
+
+    @Benchmark
+    public String formatLegacy() {
+        int minuteOfDay = mMinutesOfDay[next()];
+        return LegacyTime.format(minuteOfDay / 60, minuteOfDay % 60, mIs24HourFormat);
+    }
+
+    @Benchmark
+    public void formatCodec(Blackhole blackhole) {
+        blackhole.consume(TimeCodec.format(mMinutesOfDay[next()], mIs24HourFormat, mBuffer, 0));
+        blackhole.consume(mBuffer);
+    }
+
+    /**
+     * Copy of the parsing and formatting TimePreference did before {@link TimeCodec}.
+     */
+    static final class LegacyTime {
+        private LegacyTime() {
+        }
+
+        static int getHour(String time) {
+            String[] pieces = time.split(":");
+            return Integer.parseInt(pieces[0]);
+        }
+
+        static int getMinute(String time) {
+            String[] pieces = time.split(":");
+            return Integer.parseInt(pieces[1]);
+        }
+
+        static String format(int hour, int minute, boolean is24HourFormat) {
+            String hourValue = String.valueOf(hour);
+            if (is24HourFormat) {
+                hourValue = toTimeDigits(hour);
+            } else {
+                if (hour > 12) {
+                    hourValue = String.valueOf(hour - 12);
+                }
+            }
+
+            return hourValue + ":" + toTimeDigits(minute);
+        }
+
+        private static String toTimeDigits(int i) {
+            String digit = String.valueOf(i);
+            if (i < 10) {
+                digit = "0" + digit;
+            }
+            return digit;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.compositor;
+
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Stamps a clean status bar over the top of every PNG screenshot in a directory, off device, using
+ * the same profiles, icons and font as the app:
+ *
+ * <pre>
+ * compositor [option ...] input-dir output-dir
+ * </pre>
+ *
+ * Options are the {@link StatusBarCommand}s, clock=0900 network=lte wifi=show gps=show bg=#33b5e5
+ * api=19, plus format=12|24 for the clock and density=3 for screenshots whose density should not
+ * be guessed from their size. Output files keep their names, the output directory can be the
+ * input one.
+ */
+public final class Compositor {
+    private static final String FORMAT = "format=";
+    private static final String DENSITY = "density=";
+
+    private Compositor() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: Compositor [option ...] <input dir> <output dir>");
+        }
+
+        StatusBarStamp stamp = new StatusBarStamp(StatusBarStamp.loadProfiles());
+        for (int i = 0; i < args.length - 2; i++) {
+            String option = args[i];
+            if (option.startsWith(FORMAT)) {
+                stamp.set24HourFormat(parseFormat(option.substring(FORMAT.length())));
+            } else if (option.startsWith(DENSITY)) {
+                stamp.setDensity(parseDensity(option.substring(DENSITY.length())));
+            } else {
+                stamp.apply(StatusBarCommand.parse(option));
+            }
+        }
+
+        File inputDirectory = new File(args[args.length - 2]);
+        File outputDirectory = new File(args[args.length - 1]);
+        File[] inputs = inputDirectory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().toLowerCase(Locale.US).endsWith(".png");
+            }
+        });
+        if (inputs == null) {
+            throw new IOException("Not a directory: " + inputDirectory);
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + outputDirectory);
+        }
+        Arrays.sort(inputs);
+
+        int failed = stampAll(stamp, inputs, outputDirectory);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * Stamps the screenshots on every core.
+     *
+     * @return how many failed, each one is reported on stderr
+     */
+    static int stampAll(StatusBarStamp stamp, File[] inputs, File outputDirectory) {
+        // the disk cache only slows decoding and encoding down when the heap is not short
+        ImageIO.setUseCache(false);
+
+        AtomicInteger stampedCount = new AtomicInteger();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool();
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new StampTask(stamp, inputs, 0, inputs.length, outputDirectory, stampedCount, failures));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (String failure : failures) {
+            System.err.println(failure);
+        }
+        System.out.println(String.format(Locale.US, "stamped %d of %d screenshots in %d ms on %d threads, %.1f/s",
+                stampedCount.get(), inputs.length, elapsedMillis, pool.getParallelism(),
+                elapsedMillis > 0 ? stampedCount.get() * 1000f / elapsedMillis : 0f));
+        return failures.size();
+    }
+
+    private static boolean parseFormat(String value) {
+        if ("24".equals(value)) {
+            return true;
+        } else if ("12".equals(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Bad value for format: " + value);
+    }
+
+    private static float parseDensity(String value) {
+        try {
+            float density = Float.parseFloat(value);
+            if (density > 0) {
+                return density;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Bad value for density: " + value);
+    }
+}
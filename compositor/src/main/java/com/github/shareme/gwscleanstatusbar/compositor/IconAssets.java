@@ -0,0 +1,144 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.compositor;
+
+import com.github.shareme.gwscleanstatusbar.core.StatusBarIcons;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The app's status bar icons for one density, picked from the drawable buckets and scaled the way
+ * Resources does it, then tinted like TintedDrawableCache does with SRC_IN.
+ */
+final class IconAssets {
+    private static final String[] BUCKETS = {"drawable-mdpi", "drawable-hdpi", "drawable-xhdpi", "drawable-xxhdpi"};
+    private static final float[] BUCKET_DENSITIES = {1f, 1.5f, 2f, 3f};
+
+    // layers of each StatusBarIcons id, the network icons are the layer lists in res/drawable
+    private static final String[][] LAYERS = new String[StatusBarIcons.COUNT][];
+
+    static {
+        String[] data = {null, "g", "e", "3g", "h", "lte", "roam"};
+        for (int i = 0; i < data.length; i++) {
+            LAYERS[StatusBarIcons.NETWORK_OFF + i] = network("stat_sys_signal_4_fully", data[i]);
+            LAYERS[StatusBarIcons.NETWORK_OFF_L + i] = network("stat_sys_signal_4_fully_l", data[i]);
+        }
+        LAYERS[StatusBarIcons.WIFI_FULL] = new String[]{"stat_sys_wifi_signal_4_fully"};
+        LAYERS[StatusBarIcons.WIFI_FULL_L] = new String[]{"stat_sys_wifi_signal_4_fully_l"};
+        LAYERS[StatusBarIcons.GPS_16] = new String[]{"stat_sys_gps_on_16"};
+        LAYERS[StatusBarIcons.GPS_19] = new String[]{"stat_sys_gps_on_19"};
+    }
+
+    private final float mDensity;
+
+    IconAssets(float density) {
+        mDensity = density;
+    }
+
+    /**
+     * @param icon one of the {@link StatusBarIcons} ids
+     * @return the icon at its intrinsic size in pixels, every pixel the colour with the icon's alpha
+     */
+    BufferedImage get(int icon, int colour) throws IOException {
+        String[] layers = LAYERS[icon];
+        BufferedImage[] images = new BufferedImage[layers.length];
+        int width = 0;
+        int height = 0;
+        for (int i = 0; i < layers.length; i++) {
+            images[i] = load(layers[i]);
+            width = Math.max(width, images[i].getWidth());
+            height = Math.max(height, images[i].getHeight());
+        }
+
+        // a layer list stretches every layer over its bounds
+        BufferedImage merged = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = merged.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (BufferedImage layer : images) {
+                g.drawImage(layer, 0, 0, width, height, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        tint(merged, colour);
+        return merged;
+    }
+
+    /**
+     * Decodes the PNG from the closest bucket at or above the density, or below it if no bucket
+     * above has it, and scales it to the density.
+     */
+    private BufferedImage load(String name) throws IOException {
+        int bucket = 0;
+        while (bucket < BUCKETS.length - 1 && BUCKET_DENSITIES[bucket] < mDensity) {
+            bucket++;
+        }
+
+        for (int step = 0; step < BUCKETS.length; step++) {
+            // the chosen bucket, then the ones above it, then the ones below from the closest down
+            int candidate = bucket + step < BUCKETS.length ? bucket + step : BUCKETS.length - 1 - step;
+            InputStream in = IconAssets.class.getResourceAsStream("/" + BUCKETS[candidate] + "/" + name + ".png");
+            if (in == null) {
+                continue;
+            }
+            try {
+                return scale(ImageIO.read(in), mDensity / BUCKET_DENSITIES[candidate]);
+            } finally {
+                in.close();
+            }
+        }
+        throw new IOException("No drawable " + name);
+    }
+
+    private static BufferedImage scale(BufferedImage image, float scale) {
+        int width = (int) (image.getWidth() * scale + 0.5f);
+        int height = (int) (image.getHeight() * scale + 0.5f);
+        BufferedImage scaled = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static void tint(BufferedImage image, int colour) {
+        int alpha = colour >>> 24;
+        int rgb = colour & 0xffffff;
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int i = 0; i < pixels.length; i++) {
+            int tinted = ((pixels[i] >>> 24) * alpha + 127) / 255;
+            pixels[i] = (tinted << 24) | rgb;
+        }
+        image.setRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
+    }
+
+    private static String[] network(String signal, String data) {
+        if (data == null) {
+            return new String[]{signal};
+        }
+        return new String[]{signal, "stat_sys_data_fully_connected_" + data};
+    }
+}
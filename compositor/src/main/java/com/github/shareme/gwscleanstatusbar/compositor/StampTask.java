@@ -0,0 +1,134 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.compositor;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Stamps a range of screenshots, split in halves until every task holds one so idle workers can
+ * steal what is left of a slow half.
+ */
+final class StampTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    // deflate level 2, encoding is most of the time a screenshot takes and the default level is
+    // slower without being any smaller on screenshots
+    private static final float PNG_COMPRESSION_QUALITY = 0.75f;
+
+    private final StatusBarStamp mStamp;
+    private final File[] mInputs;
+    private final int mStart;
+    private final int mEnd;
+    private final File mOutputDirectory;
+    private final AtomicInteger mStampedCount;
+    private final Queue<String> mFailures;
+
+    /**
+     * @param failures gets "file: reason" for every screenshot that could not be stamped
+     */
+    StampTask(StatusBarStamp stamp, File[] inputs, int start, int end, File outputDirectory,
+              AtomicInteger stampedCount, Queue<String> failures) {
+        mStamp = stamp;
+        mInputs = inputs;
+        mStart = start;
+        mEnd = end;
+        mOutputDirectory = outputDirectory;
+        mStampedCount = stampedCount;
+        mFailures = failures;
+    }
+
+    @Override
+    protected void compute() {
+        if (mEnd - mStart > 1) {
+            int middle = (mStart + mEnd) >>> 1;
+            invokeAll(new StampTask(mStamp, mInputs, mStart, middle, mOutputDirectory, mStampedCount, mFailures),
+                    new StampTask(mStamp, mInputs, middle, mEnd, mOutputDirectory, mStampedCount, mFailures));
+            return;
+        }
+        if (mEnd > mStart) {
+            stamp(mInputs[mStart]);
+        }
+    }
+
+    private void stamp(File input) {
+        try {
+            BufferedImage screenshot = ImageIO.read(input);
+            if (screenshot == null) {
+                throw new IOException("not an image");
+            }
+            writePng(mStamp.stamp(screenshot), new File(mOutputDirectory, input.getName()));
+            mStampedCount.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            mFailures.add(input.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static void writePng(BufferedImage image, File file) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+        if (!writers.hasNext()) {
+            throw new IOException("no png writer");
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(PNG_COMPRESSION_QUALITY);
+        }
+
+        // written next to the target and moved over it, so a failed write leaves any old image whole
+        File temp = File.createTempFile("." + file.getName(), ".tmp", file.getParentFile());
+        boolean isMoved = false;
+        try {
+            ImageOutputStream out = ImageIO.createImageOutputStream(temp);
+            if (out == null) {
+                throw new IOException("cannot write " + temp);
+            }
+            try {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                out.close();
+                writer.dispose();
+            }
+
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            isMoved = true;
+        } finally {
+            if (!isMoved) {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.compositor;
+
+import com.github.shareme.gwscleanstatusbar.core.ProfileCompiler;
+import com.github.shareme.gwscleanstatusbar.core.ProfileIndex;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfileTable;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stamps one status bar state over the top of screenshots. The strip only depends on the
+ * screenshot's width and density, so it is drawn once for each and every screenshot after that
+ * is a single image copy.
+ *
+ * Configure with {@link #apply(StatusBarCommand)} before stamping, {@link #stamp(BufferedImage)}
+ * is safe from any thread.
+ */
+final class StatusBarStamp {
+    private final ProfileIndex mProfileIndex;
+    private final StripRenderer mRenderer = new StripRenderer();
+    private final Map<Float, StatusBarProfileTable> mProfileTables = new HashMap<>();
+    // by width in the low and density bits in the high half
+    private final Map<Long, BufferedImage> mStrips = new HashMap<>();
+    private float mDensity;
+
+    StatusBarStamp(ProfileIndex profileIndex) {
+        mProfileIndex = profileIndex;
+    }
+
+    /**
+     * Compiles the profile source the app ships.
+     */
+    static ProfileIndex loadProfiles() throws IOException {
+        InputStream in = StatusBarStamp.class.getResourceAsStream("/status_bar_profiles.txt");
+        if (in == null) {
+            throw new IOException("No status_bar_profiles.txt");
+        }
+        Reader source = new InputStreamReader(in, "UTF-8");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ProfileCompiler.compile(source, out);
+            return new ProfileIndex(ByteBuffer.wrap(out.toByteArray()));
+        } finally {
+            source.close();
+        }
+    }
+
+    synchronized void apply(StatusBarCommand command) {
+        mRenderer.apply(command);
+        mStrips.clear();
+    }
+
+    synchronized void set24HourFormat(boolean is24HourFormat) {
+        mRenderer.set24HourFormat(is24HourFormat);
+        mStrips.clear();
+    }
+
+    /**
+     * @param density the density of every screenshot, 0 guesses it from each one's size
+     */
+    synchronized void setDensity(float density) {
+        mDensity = density;
+    }
+
+    /**
+     * Draws the status bar over the top of the screenshot.
+     *
+     * @return the screenshot, or a copy of it if it could not be drawn into as it is
+     */
+    BufferedImage stamp(BufferedImage screenshot) throws IOException {
+        BufferedImage strip = getStrip(screenshot.getWidth(), getDensity(screenshot.getWidth(), screenshot.getHeight()));
+        BufferedImage target = isDirectColour(screenshot) ? screenshot : copy(screenshot);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(strip, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    synchronized BufferedImage getStrip(int width, float density) throws IOException {
+        Long key = ((long) Float.floatToIntBits(density) << 32) | width;
+        BufferedImage strip = mStrips.get(key);
+        if (strip == null) {
+            StatusBarProfileTable table = mProfileTables.get(density);
+            if (table == null) {
+                table = new StatusBarProfileTable(mProfileIndex, density);
+                mProfileTables.put(density, table);
+            }
+            strip = mRenderer.render(width, table.get(mRenderer.getApiLevel()), density);
+            mStrips.put(key, strip);
+        }
+        return strip;
+    }
+
+    private synchronized float getDensity(int width, int height) {
+        return mDensity > 0 ? mDensity : guessDensity(width, height);
+    }
+
+    /**
+     * A phone is 360dp across, or 320dp below xhdpi, whichever way up the screenshot is.
+     */
+    static float guessDensity(int width, int height) {
+        int shortSide = Math.min(width, height);
+        return shortSide >= 720 ? shortSide / 360f : shortSide / 320f;
+    }
+
+    /**
+     * Palette and grey PNGs decode to images that cannot hold the status bar's colours.
+     */
+    private static boolean isDirectColour(BufferedImage image) {
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = copy.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.compositor;
+
+import com.github.shareme.gwscleanstatusbar.core.BatteryGeometry;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+import com.github.shareme.gwscleanstatusbar.core.StatusBarProfile;
+import com.github.shareme.gwscleanstatusbar.core.TimeCodec;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws the status bar with Java2D, laid out the way FlatStatusBarView lays out the app's overlay:
+ * gps, wifi, network, battery and clock right aligned and centred vertically.
+ */
+final class StripRenderer {
+    static final int DEFAULT_API_LEVEL = 21;
+    // a screenshot already has a status bar, the default covers it
+    static final int DEFAULT_BACKGROUND_COLOUR = 0xff000000;
+
+    // the platform's status_bar_height, the app reads it off the device
+    private static final float STATUS_BAR_HEIGHT_DP = 24;
+    private static final float STATUS_BAR_HEIGHT_DP_PRE_LOLLIPOP = 25;
+
+    // from R.layout.status_bar and FlatStatusBarView
+    private static final float BATTERY_MARGIN_LEFT_DP = 4;
+    private static final float CLOCK_PADDING_LEFT_DP = 6;
+    private static final float GPS_PADDING_DP = 5;
+    private static final float WIFI_MARGIN_RIGHT_DP = -6;
+    private static final float WIFI_PADDING_RIGHT_DP = 2;
+    private static final int NETWORK_STATUS_ICON_OFF = 0;
+
+    private final Map<String, Font> mFonts = new HashMap<>();
+    private final float[] mBatteryGeometry = new float[BatteryGeometry.SIZE];
+
+    private int mApiLevel;
+    private int mMinuteOfDay;
+    private boolean mIs24HourFormat;
+    private int mNetworkIcon;
+    private boolean mShowWifi;
+    private boolean mShowGps;
+    private int mBackgroundColour;
+
+    StripRenderer() {
+        reset();
+    }
+
+    int getApiLevel() {
+        return mApiLevel;
+    }
+
+    void set24HourFormat(boolean is24HourFormat) {
+        mIs24HourFormat = is24HourFormat;
+    }
+
+    /**
+     * Applies the command to the state every later render draws.
+     */
+    void apply(StatusBarCommand command) {
+        switch (command.getType()) {
+            case StatusBarCommand.TYPE_CLOCK:
+                mMinuteOfDay = command.getValue();
+                break;
+            case StatusBarCommand.TYPE_NETWORK:
+                mNetworkIcon = command.getValue();
+                break;
+            case StatusBarCommand.TYPE_WIFI:
+                mShowWifi = command.isShown();
+                break;
+            case StatusBarCommand.TYPE_GPS:
+                mShowGps = command.isShown();
+                break;
+            case StatusBarCommand.TYPE_BACKGROUND:
+                mBackgroundColour = command.getValue();
+                break;
+            case StatusBarCommand.TYPE_API:
+                mApiLevel = command.getValue();
+                break;
+            case StatusBarCommand.TYPE_RESET:
+                reset();
+                break;
+        }
+    }
+
+    private void reset() {
+        mApiLevel = DEFAULT_API_LEVEL;
+        mMinuteOfDay = TimeCodec.DEFAULT_MINUTE_OF_DAY;
+        mNetworkIcon = -1;
+        mShowWifi = false;
+        mShowGps = false;
+        mBackgroundColour = DEFAULT_BACKGROUND_COLOUR;
+    }
+
+    static int getHeight(int apiLevel, float density) {
+        return dimensionPixelSize(apiLevel >= 21 ? STATUS_BAR_HEIGHT_DP : STATUS_BAR_HEIGHT_DP_PRE_LOLLIPOP, density);
+    }
+
+    /**
+     * @param profile the profile for the state's API level at the density
+     */
+    BufferedImage render(int width, StatusBarProfile profile, float density) throws IOException {
+        int height = getHeight(mApiLevel, density);
+        int foregroundColour = profile.getForegroundColour(false);
+        IconAssets icons = new IconAssets(density);
+
+        IconSlot gps = new IconSlot();
+        if (mShowGps) {
+            gps.set(icons.get(profile.getGpsIcon(), foregroundColour));
+            gps.mPaddingTop = dpToPx(GPS_PADDING_DP, density);
+            gps.mPaddingBottom = gps.mPaddingTop;
+        }
+
+        IconSlot network = new IconSlot();
+        if (mNetworkIcon >= 0) {
+            network.set(icons.get(profile.getNetworkIcon(mShowWifi ? NETWORK_STATUS_ICON_OFF : mNetworkIcon), foregroundColour));
+            network.mPaddingRight = profile.getNetworkIconPaddingOffset();
+        }
+
+        IconSlot wifi = new IconSlot();
+        if (mShowWifi) {
+            wifi.set(icons.get(profile.getWifiIcon(), foregroundColour));
+            if (mNetworkIcon >= 0) {
+                wifi.mRightMargin = dpToPx(WIFI_MARGIN_RIGHT_DP, density);
+                wifi.mPaddingRight = profile.getWifiPaddingOffset();
+            } else {
+                wifi.mPaddingRight = dpToPx(WIFI_PADDING_RIGHT_DP, density);
+            }
+        }
+
+        BufferedImage strip = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = strip.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            g.setColor(new Color(mBackgroundColour, true));
+            g.fillRect(0, 0, width, height);
+
+            String time = TimeCodec.toString(mMinuteOfDay, mIs24HourFormat);
+            Font font = getFont(profile.getFontAsset()).deriveFont(profile.getFontSize() * density);
+            FontMetrics metrics = g.getFontMetrics(font);
+            int textWidth = (int) Math.ceil(font.getStringBounds(time, g.getFontRenderContext()).getWidth());
+
+            int batteryWidth = profile.getBatteryWidth();
+            int batteryHeight = profile.getBatteryHeight();
+            int batteryMarginLeft = dimensionPixelSize(BATTERY_MARGIN_LEFT_DP, density);
+            int clockPaddingLeft = dimensionPixelSize(CLOCK_PADDING_LEFT_DP, density);
+
+            // the measure and layout passes of the horizontal LinearLayout FlatStatusBarView mirrors
+            int totalLength = 0;
+            totalLength = gps.measure(height, totalLength);
+            totalLength = wifi.measure(height, totalLength);
+            totalLength = network.measure(height, totalLength);
+            totalLength = Math.max(totalLength, totalLength + batteryWidth + batteryMarginLeft);
+            int clockWidth = textWidth + clockPaddingLeft;
+            int clockHeight = Math.min(metrics.getMaxAscent() + metrics.getMaxDescent(), height);
+            totalLength = Math.max(totalLength, totalLength + clockWidth);
+
+            int childLeft = width - profile.getRightPadding() - totalLength;
+            childLeft = gps.layout(childLeft, height);
+            childLeft = wifi.layout(childLeft, height);
+            childLeft = network.layout(childLeft, height);
+
+            childLeft += batteryMarginLeft;
+            int batteryTop = ((height - batteryHeight) / 2) - profile.getBatteryBottomMargin();
+            int clockLeft = childLeft + batteryWidth;
+            int clockTop = (height - clockHeight) / 2;
+
+            gps.draw(g);
+            wifi.draw(g);
+            network.draw(g);
+
+            g.setColor(new Color(foregroundColour, true));
+            if (batteryWidth > 0 && batteryHeight > 0) {
+                g.fill(getBatteryShape(childLeft, batteryTop, batteryWidth, batteryHeight));
+            }
+
+            g.setFont(font);
+            g.clipRect(clockLeft + clockPaddingLeft, clockTop, clockWidth - clockPaddingLeft, clockHeight);
+            g.drawString(time, clockLeft + clockWidth - textWidth, clockTop + metrics.getMaxAscent());
+        } finally {
+            g.dispose();
+        }
+        return strip;
+    }
+
+    /**
+     * The frame and button as one shape, the way BatteryMeterDrawer fills them.
+     */
+    private Area getBatteryShape(int left, int top, int width, int height) {
+        BatteryGeometry.layout(left, top, width, height, mBatteryGeometry);
+        Area shape = new Area(rect(BatteryGeometry.FRAME));
+        shape.add(new Area(rect(BatteryGeometry.BUTTON)));
+        return shape;
+    }
+
+    private Rectangle2D.Float rect(int offset) {
+        float[] g = mBatteryGeometry;
+        return new Rectangle2D.Float(g[offset], g[offset + 1], g[offset + 2] - g[offset], g[offset + 3] - g[offset + 1]);
+    }
+
+    /**
+     * @param asset font path in the app's assets, null for the system font
+     */
+    private Font getFont(String asset) throws IOException {
+        if (asset == null) {
+            return new Font(Font.SANS_SERIF, Font.PLAIN, 1);
+        }
+
+        Font font = mFonts.get(asset);
+        if (font == null) {
+            InputStream in = StripRenderer.class.getResourceAsStream("/" + asset);
+            if (in == null) {
+                throw new IOException("No font " + asset);
+            }
+            try {
+                font = Font.createFont(Font.TRUETYPE_FONT, in);
+            } catch (FontFormatException e) {
+                throw new IOException("Bad font " + asset, e);
+            } finally {
+                in.close();
+            }
+            mFonts.put(asset, font);
+        }
+        return font;
+    }
+
+    private static int dpToPx(float dp, float density) {
+        return (int) (dp * density);
+    }
+
+    /**
+     * Same rounding as dimensions inflated from xml.
+     */
+    private static int dimensionPixelSize(float dp, float density) {
+        return (int) (dp * density + 0.5f);
+    }
+
+    /**
+     * Wrap content ImageView with the default FIT_CENTER scale type, as in FlatStatusBarView.
+     */
+    private static class IconSlot {
+        BufferedImage mImage;
+        int mPaddingTop;
+        int mPaddingRight;
+        int mPaddingBottom;
+        int mRightMargin;
+
+        int mLeft;
+        int mTop;
+        int mWidth;
+        int mHeight;
+
+        void set(BufferedImage image) {
+            mImage = image;
+        }
+
+        /**
+         * @return the total length including this slot
+         */
+        int measure(int maxHeight, int totalLength) {
+            if (mImage == null) {
+                return totalLength;
+            }
+            mWidth = mImage.getWidth() + mPaddingRight;
+            mHeight = Math.min(mImage.getHeight() + mPaddingTop + mPaddingBottom, maxHeight);
+            return Math.max(totalLength, totalLength + mWidth + mRightMargin);
+        }
+
+        /**
+         * @return the left edge of the next slot
+         */
+        int layout(int childLeft, int childSpace) {
+            if (mImage == null) {
+                return childLeft;
+            }
+            mLeft = childLeft;
+            mTop = (childSpace - mHeight) / 2;
+            return childLeft + mWidth + mRightMargin;
+        }
+
+        void draw(Graphics2D g) {
+            if (mImage == null) {
+                return;
+            }
+
+            int dw = mImage.getWidth();
+            int dh = mImage.getHeight();
+            int vw = mWidth - mPaddingRight;
+            int vh = mHeight - mPaddingTop - mPaddingBottom;
+            if (vh <= 0) {
+                return;
+            }
+            if (dw == vw && dh == vh) {
+                g.drawImage(mImage, mLeft, mTop + mPaddingTop, null);
+                return;
+            }
+
+            float scale = Math.min((float) vw / dw, (float) vh / dh);
+            float x = mLeft + (vw - dw * scale) / 2;
+            float y = mTop + mPaddingTop + (vh - dh * scale) / 2;
+            g.drawImage(mImage, Math.round(x), Math.round(y), Math.round(dw * scale), Math.round(dh * scale), null);
+        }
+    }
+}
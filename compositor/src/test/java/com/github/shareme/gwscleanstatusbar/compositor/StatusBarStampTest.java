@@ -0,0 +1,110 @@
+package com.github.shareme.gwscleanstatusbar.compositor;
+
+import com.github.shareme.gwscleanstatusbar.core.StatusBarCommand;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StatusBarStampTest {
+    private static final int RED = 0xffff0000;
+
+    private StatusBarStamp mStamp;
+
+    @Before
+    public void setUp() throws Exception {
+        mStamp = new StatusBarStamp(StatusBarStamp.loadProfiles());
+    }
+
+    @Test
+    public void stripHeightFollowsApiLevel() throws Exception {
+        assertEquals(72, mStamp.getStrip(1080, 3f).getHeight());
+
+        mStamp.apply(StatusBarCommand.parse("api=19"));
+        assertEquals(75, mStamp.getStrip(1080, 3f).getHeight());
+    }
+
+    @Test
+    public void drawsIconsOnTheRightOfTheBackground() throws Exception {
+        mStamp.apply(StatusBarCommand.parse("bg=#33b5e5"));
+        mStamp.apply(StatusBarCommand.parse("network=lte"));
+        mStamp.apply(StatusBarCommand.parse("wifi=show"));
+        mStamp.apply(StatusBarCommand.parse("gps=show"));
+        BufferedImage strip = mStamp.getStrip(1080, 3f);
+
+        assertEquals(0xff33b5e5, strip.getRGB(0, 0));
+        assertEquals(0xff33b5e5, strip.getRGB(strip.getWidth() / 2, strip.getHeight() / 2));
+        // white foreground somewhere in the right third
+        assertTrue(countColour(strip, 0xffffffff, strip.getWidth() * 2 / 3) > 0);
+    }
+
+    @Test
+    public void stampsTheTopRowsOnly() throws Exception {
+        BufferedImage screenshot = filled(1080, 1920, BufferedImage.TYPE_INT_RGB, RED);
+
+        BufferedImage stamped = mStamp.stamp(screenshot);
+
+        assertSame(screenshot, stamped);
+        assertEquals(0xff000000, stamped.getRGB(0, 71));
+        assertEquals(RED, stamped.getRGB(0, 72));
+    }
+
+    @Test
+    public void copiesPaletteScreenshots() throws Exception {
+        BufferedImage screenshot = filled(720, 1280, BufferedImage.TYPE_BYTE_INDEXED, RED);
+
+        BufferedImage stamped = mStamp.stamp(screenshot);
+
+        assertNotSame(screenshot, stamped);
+        assertEquals(BufferedImage.TYPE_INT_RGB, stamped.getType());
+        assertEquals(0xff000000, stamped.getRGB(0, 0));
+        assertEquals(RED, stamped.getRGB(0, 48));
+    }
+
+    @Test
+    public void reusesStripsUntilTheStateChanges() throws Exception {
+        BufferedImage strip = mStamp.getStrip(1080, 3f);
+        assertSame(strip, mStamp.getStrip(1080, 3f));
+        assertNotSame(strip, mStamp.getStrip(1080, 2f));
+
+        mStamp.apply(StatusBarCommand.parse("clock=0905"));
+        assertNotSame(strip, mStamp.getStrip(1080, 3f));
+    }
+
+    @Test
+    public void guessesDensityFromTheShortSide() {
+        assertEquals(3f, StatusBarStamp.guessDensity(1080, 1920), 0f);
+        assertEquals(3f, StatusBarStamp.guessDensity(1920, 1080), 0f);
+        assertEquals(4f, StatusBarStamp.guessDensity(1440, 2560), 0f);
+        assertEquals(1.5f, StatusBarStamp.guessDensity(480, 800), 0f);
+    }
+
+    private static BufferedImage filled(int width, int height, int type, int colour) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(colour, true));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static int countColour(BufferedImage image, int colour, int fromX) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = fromX; x < image.getWidth(); x++) {
+                if (image.getRGB(x, y) == colour) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * Layout of the AOSP battery meter, a frame with a button on top, as plain floats so it can be
+ * worked out and measured without android.graphics.
+ *
+ * The frame and button rects are written left, top, right, bottom into one float array, the
+ * frame at {@link #FRAME} and the button at {@link #BUTTON}.
+ */
+public final class BatteryGeometry {
+    public static final float SUBPIXEL = 0.4f;  // inset rects for softer edges
+
+    public static final int FRAME = 0;
+    public static final int BUTTON = 4;
+    public static final int SIZE = 8;
+
+    private static final float BUTTON_HEIGHT = 0.12f;
+    private static final float BUTTON_INSET = 0.25f;
+    private static final int BUTTON_OVERLAP = 5; // cover frame border of intersecting area
+
+    private BatteryGeometry() {
+    }
+
+    /**
+     * Lays the battery out in the width x height box whose top left corner is at (left, top).
+     *
+     * @param out at least {@link #SIZE} floats
+     * @return the button height in pixels
+     */
+    public static int layout(int left, int top, int width, int height, float[] out) {
+        int buttonHeight = (int) (height * BUTTON_HEIGHT);
+
+        out[BUTTON] = left + width * BUTTON_INSET + SUBPIXEL;
+        out[BUTTON + 1] = top + SUBPIXEL;
+        out[BUTTON + 2] = left + width - width * BUTTON_INSET - SUBPIXEL;
+        out[BUTTON + 3] = top + buttonHeight + BUTTON_OVERLAP;
+
+        out[FRAME] = left + SUBPIXEL;
+        out[FRAME + 1] = top + buttonHeight + SUBPIXEL;
+        out[FRAME + 2] = left + width - SUBPIXEL;
+        out[FRAME + 3] = top + height - SUBPIXEL;
+        return buttonHeight;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * One entry of a user palette, ordered by name ignoring case. Immutable so palette snapshots can
+ * be shared between threads. Equality is identity, a palette may hold two entries with the same name.
+ */
+public final class NamedColour implements Comparable<NamedColour> {
+    private final String mName;
+    private final int mValue;
+
+    public NamedColour(String name, int value) {
+        if (name == null) {
+            throw new IllegalArgumentException("A colour needs a name");
+        }
+        mName = name;
+        mValue = value;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return ARGB colour value
+     */
+    public int getValue() {
+        return mValue;
+    }
+
+    @Override
+    public int compareTo(NamedColour other) {
+        int result = String.CASE_INSENSITIVE_ORDER.compare(mName, other.mName);
+        return result != 0 ? result : mName.compareTo(other.mName);
+    }
+
+    @Override
+    public String toString() {
+        return mName + " #" + Integer.toHexString(mValue);
+    }
+}
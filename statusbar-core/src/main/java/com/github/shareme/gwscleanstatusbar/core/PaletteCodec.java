@@ -0,0 +1,325 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact record format for user palettes, small enough to keep in a SharedPreferences string.
+ *
+ * <pre>
+ * palette/1
+ * FF33B5E5 Holo blue
+ * FF000000 Black
+ * </pre>
+ *
+ * Each record is the ARGB value as eight hex digits, a space and the name with backslash,
+ * newline and carriage return escaped. {@link #decode(CharSequence)} also reads the reflective
+ * Gson JSON ColourPreference used to store, so old palettes migrate on first read.
+ */
+public final class PaletteCodec {
+    public static final String HEADER = "palette/1";
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final String LEGACY_VALUE = "mColourValue";
+    private static final String LEGACY_NAME = "mColourName";
+
+    private PaletteCodec() {
+    }
+
+    public static String encode(List<NamedColour> colours) {
+        // most names are short, this avoids regrowing for typical palettes
+        StringBuilder builder = new StringBuilder(HEADER.length() + colours.size() * 24);
+        encode(colours, builder);
+        return builder.toString();
+    }
+
+    public static void encode(List<NamedColour> colours, StringBuilder out) {
+        out.append(HEADER);
+        for (int i = 0, size = colours.size(); i < size; i++) {
+            NamedColour colour = colours.get(i);
+            out.append('\n');
+            int value = colour.getValue();
+            for (int shift = 28; shift >= 0; shift -= 4) {
+                out.append(HEX_DIGITS[(value >>> shift) & 0xF]);
+            }
+            out.append(' ');
+            String name = colour.getName();
+            for (int c = 0, length = name.length(); c < length; c++) {
+                char ch = name.charAt(c);
+                switch (ch) {
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    default:
+                        out.append(ch);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the text is the old Gson JSON and should be written back in the new format
+     */
+    public static boolean isLegacy(CharSequence text) {
+        return text != null && text.length() > 0 && text.charAt(0) == '[';
+    }
+
+    /**
+     * @return the palette in stored order, or null if nothing is stored
+     * @throws IllegalArgumentException if the text is neither format
+     */
+    public static List<NamedColour> decode(CharSequence text) {
+        if (text == null || text.length() == 0 || "null".contentEquals(text)) {
+            return null;
+        }
+        if (isLegacy(text)) {
+            return new LegacyJsonReader(text).readPalette();
+        }
+        if (!startsWith(text, HEADER)) {
+            throw new IllegalArgumentException("Unknown palette format");
+        }
+
+        List<NamedColour> colours = new ArrayList<>();
+        StringBuilder name = new StringBuilder();
+        int length = text.length();
+        int position = HEADER.length();
+        while (position < length) {
+            if (text.charAt(position) != '\n' || position + 10 > length || text.charAt(position + 9) != ' ') {
+                throw new IllegalArgumentException("Bad palette record at " + position);
+            }
+            int value = 0;
+            for (int i = position + 1; i <= position + 8; i++) {
+                value = (value << 4) | hexValue(text.charAt(i));
+            }
+
+            name.setLength(0);
+            position += 10;
+            for (; position < length; position++) {
+                char ch = text.charAt(position);
+                if (ch == '\n') {
+                    break;
+                }
+                if (ch == '\\' && position + 1 < length) {
+                    char escaped = text.charAt(++position);
+                    ch = escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped;
+                }
+                name.append(ch);
+            }
+            colours.add(new NamedColour(name.toString(), value));
+        }
+        return colours;
+    }
+
+    private static boolean startsWith(CharSequence text, String prefix) {
+        if (text.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hexValue(char ch) {
+        if (ch >= '0' && ch <= '9') {
+            return ch - '0';
+        }
+        if (ch >= 'A' && ch <= 'F') {
+            return ch - 'A' + 10;
+        }
+        if (ch >= 'a' && ch <= 'f') {
+            return ch - 'a' + 10;
+        }
+        throw new IllegalArgumentException("Not a hex digit " + ch);
+    }
+
+    /**
+     * Just enough of a JSON reader for an array of {"mColourValue":int,"mColourName":string}
+     * objects, unknown members with plain values are skipped.
+     */
+    private static final class LegacyJsonReader {
+        private final CharSequence mText;
+        private int mPosition;
+
+        LegacyJsonReader(CharSequence text) {
+            mText = text;
+        }
+
+        List<NamedColour> readPalette() {
+            List<NamedColour> colours = new ArrayList<>();
+            expect('[');
+            if (peek() == ']') {
+                mPosition++;
+                return colours;
+            }
+            do {
+                colours.add(readColour());
+            } while (consumeSeparator(']'));
+            return colours;
+        }
+
+        private NamedColour readColour() {
+            String name = null;
+            int value = 0;
+            expect('{');
+            if (peek() == '}') {
+                throw error("Colour without a name");
+            }
+            do {
+                String member = readString();
+                expect(':');
+                if (LEGACY_VALUE.equals(member)) {
+                    value = (int) readNumber();
+                } else if (LEGACY_NAME.equals(member)) {
+                    name = readString();
+                } else {
+                    skipValue();
+                }
+            } while (consumeSeparator('}'));
+
+            if (name == null) {
+                throw error("Colour without a name");
+            }
+            return new NamedColour(name, value);
+        }
+
+        /**
+         * @return true after a comma, false after the closing character
+         */
+        private boolean consumeSeparator(char close) {
+            char ch = peek();
+            mPosition++;
+            if (ch == ',') {
+                return true;
+            }
+            if (ch == close) {
+                return false;
+            }
+            throw error("Expected , or " + close);
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+            while (true) {
+                char ch = next();
+                if (ch == '"') {
+                    return builder.toString();
+                }
+                if (ch != '\\') {
+                    builder.append(ch);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            code = (code << 4) | hexValue(next());
+                        }
+                        builder.append((char) code);
+                        break;
+                    default:
+                        builder.append(escaped);
+                }
+            }
+        }
+
+        private long readNumber() {
+            skipWhitespace();
+            int start = mPosition;
+            while (mPosition < mText.length() && "+-0123456789.eE".indexOf(mText.charAt(mPosition)) >= 0) {
+                mPosition++;
+            }
+            if (start == mPosition) {
+                throw error("Expected a number");
+            }
+            return (long) Double.parseDouble(mText.subSequence(start, mPosition).toString());
+        }
+
+        private void skipValue() {
+            char ch = peek();
+            if (ch == '"') {
+                readString();
+            } else if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                readNumber();
+            } else if (ch == 't' || ch == 'f' || ch == 'n') {
+                while (mPosition < mText.length() && Character.isLetter(mText.charAt(mPosition))) {
+                    mPosition++;
+                }
+            } else {
+                throw error("Unsupported value");
+            }
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw error("Expected " + expected);
+            }
+            mPosition++;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (mPosition >= mText.length()) {
+                throw error("Unexpected end");
+            }
+            return mText.charAt(mPosition);
+        }
+
+        private char next() {
+            if (mPosition >= mText.length()) {
+                throw error("Unexpected end");
+            }
+            return mText.charAt(mPosition++);
+        }
+
+        private void skipWhitespace() {
+            while (mPosition < mText.length() && Character.isWhitespace(mText.charAt(mPosition))) {
+                mPosition++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + mPosition);
+        }
+    }
+}
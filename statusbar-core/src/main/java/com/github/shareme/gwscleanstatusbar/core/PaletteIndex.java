@@ -0,0 +1,152 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lookups on a palette kept sorted in {@link NamedColour} order, so large palettes never need a
+ * full sort after the first load.
+ */
+public final class PaletteIndex {
+
+    private PaletteIndex() {
+    }
+
+    /**
+     * @return where to insert the colour to keep the list sorted, after any entries that compare equal
+     */
+    public static int insertionPoint(List<NamedColour> sorted, NamedColour colour) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted.get(middle).compareTo(colour) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return a copy of the sorted list with the colour inserted in place
+     */
+    public static List<NamedColour> insert(List<NamedColour> sorted, NamedColour colour) {
+        List<NamedColour> colours = new ArrayList<>(sorted.size() + 1);
+        colours.addAll(sorted);
+        colours.add(insertionPoint(sorted, colour), colour);
+        return colours;
+    }
+
+    /**
+     * Matches names starting with the query, ignoring case, or with a leading '#' ARGB or RGB
+     * values starting with the hex digits that follow.
+     *
+     * @return the matches in sorted order, a view of the sorted list for a name query
+     */
+    public static List<NamedColour> filter(List<NamedColour> sorted, String query) {
+        if (query == null || query.isEmpty()) {
+            return sorted;
+        }
+        if (query.charAt(0) == '#') {
+            return filterByHex(sorted, query.substring(1));
+        }
+
+        // names sharing a prefix are next to each other in case insensitive order
+        int from = firstWithPrefix(sorted, query);
+        int to = from;
+        while (to < sorted.size() && comparePrefix(sorted.get(to).getName(), query) == 0) {
+            to++;
+        }
+        return sorted.subList(from, to);
+    }
+
+    private static int firstWithPrefix(List<NamedColour> sorted, String prefix) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(sorted.get(middle).getName(), prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares only the first prefix.length() chars of the name, the way CASE_INSENSITIVE_ORDER does.
+     */
+    private static int comparePrefix(String name, String prefix) {
+        int length = Math.min(name.length(), prefix.length());
+        for (int i = 0; i < length; i++) {
+            char a = name.charAt(i);
+            char b = prefix.charAt(i);
+            if (a != b) {
+                a = Character.toUpperCase(a);
+                b = Character.toUpperCase(b);
+                if (a != b) {
+                    a = Character.toLowerCase(a);
+                    b = Character.toLowerCase(b);
+                    if (a != b) {
+                        return a - b;
+                    }
+                }
+            }
+        }
+        return name.length() < prefix.length() ? -1 : 0;
+    }
+
+    private static List<NamedColour> filterByHex(List<NamedColour> sorted, String digits) {
+        int length = digits.length();
+        if (length > 8) {
+            return Collections.emptyList();
+        }
+        int prefix = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = Character.digit(digits.charAt(i), 16);
+            if (digit < 0) {
+                return Collections.emptyList();
+            }
+            prefix = (prefix << 4) | digit;
+        }
+
+        List<NamedColour> matches = new ArrayList<>();
+        for (int i = 0, size = sorted.size(); i < size; i++) {
+            NamedColour colour = sorted.get(i);
+            int value = colour.getValue();
+            if (hexStartsWith(value, 8, prefix, length) || hexStartsWith(value & 0xFFFFFF, 6, prefix, length)) {
+                matches.add(colour);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean hexStartsWith(int value, int valueDigits, int prefix, int prefixDigits) {
+        if (prefixDigits > valueDigits) {
+            return false;
+        }
+        if (prefixDigits == 0) {
+            return true;
+        }
+        return (value >>> ((valueDigits - prefixDigits) * 4)) == prefix;
+    }
+}
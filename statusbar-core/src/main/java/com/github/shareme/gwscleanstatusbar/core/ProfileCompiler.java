@@ -0,0 +1,222 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles the profile source the app bundles into the binary {@link ProfileIndex}, run by the
+ * app build. A source is a list of sections, one per API level:
+ *
+ * <pre>
+ * # comment
+ * [21]
+ * label = Lollipop
+ * foreground_colour = #ffffffff
+ * gradient_colour = #ffffffff     only for versions with a gradient bar
+ * font = fonts/Roboto-Medium.ttf   leave out for the system font
+ * font_size = 14
+ * right_padding = 8
+ * battery_width = 10
+ * battery_height = 15.5
+ * battery_bottom_margin = 0
+ * network_icon_padding_offset = 3
+ * wifi_padding_offset = 4
+ * network_icons = network_off_l network_g_l network_e_l network_3g_l network_h_l network_lte_l network_roam_l
+ * wifi_icon = wifi_full_l
+ * gps_icon = gps_19
+ * </pre>
+ *
+ * Sizes are in dp, except font_size which is in sp. Icons are {@link StatusBarIcons} names.
+ */
+public final class ProfileCompiler {
+    private static final String[] DIMENSION_KEYS = {
+            "right_padding", "battery_width", "battery_height", "battery_bottom_margin",
+            "network_icon_padding_offset", "wifi_padding_offset"
+    };
+
+    private ProfileCompiler() {
+    }
+
+    /**
+     * Usage: ProfileCompiler source output
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ProfileCompiler <source> <output>");
+        }
+        Reader in = new InputStreamReader(new FileInputStream(args[0]), "UTF-8");
+        try {
+            OutputStream out = new FileOutputStream(args[1]);
+            try {
+                compile(in, out);
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the source is malformed, naming the line
+     */
+    public static void compile(Reader source, OutputStream out) throws IOException {
+        TreeMap<Integer, Map<String, String>> sections = parse(source);
+
+        List<byte[]> records = new ArrayList<>(sections.size());
+        for (Map.Entry<Integer, Map<String, String>> section : sections.entrySet()) {
+            records.add(writeRecord(section.getKey(), section.getValue()));
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(ProfileIndex.MAGIC);
+        data.writeInt(records.size());
+        int offset = ProfileIndex.HEADER_SIZE + records.size() * ProfileIndex.ENTRY_SIZE;
+        int i = 0;
+        for (Integer apiLevel : sections.keySet()) {
+            data.writeInt(apiLevel);
+            data.writeInt(offset);
+            offset += records.get(i++).length;
+        }
+        for (byte[] record : records) {
+            data.write(record);
+        }
+        data.flush();
+    }
+
+    private static TreeMap<Integer, Map<String, String>> parse(Reader source) throws IOException {
+        TreeMap<Integer, Map<String, String>> sections = new TreeMap<>();
+        BufferedReader reader = new BufferedReader(source);
+        Map<String, String> section = null;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+
+            if (line.charAt(0) == '[' && line.charAt(line.length() - 1) == ']') {
+                int apiLevel;
+                try {
+                    apiLevel = Integer.parseInt(line.substring(1, line.length() - 1).trim());
+                } catch (NumberFormatException e) {
+                    throw error(lineNumber, "API level expected");
+                }
+                if (sections.containsKey(apiLevel)) {
+                    throw error(lineNumber, "Duplicate profile " + apiLevel);
+                }
+                section = new HashMap<>();
+                sections.put(apiLevel, section);
+                continue;
+            }
+
+            int separator = line.indexOf('=');
+            if (section == null || separator < 0) {
+                throw error(lineNumber, "key = value inside a [api level] section expected");
+            }
+            section.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+        }
+        if (sections.isEmpty()) {
+            throw new IllegalArgumentException("No profiles");
+        }
+        return sections;
+    }
+
+    private static byte[] writeRecord(int apiLevel, Map<String, String> section) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+
+        data.writeUTF(require(apiLevel, section, "label"));
+        data.writeInt(parseColour(apiLevel, "foreground_colour", require(apiLevel, section, "foreground_colour")));
+        String gradientColour = section.get("gradient_colour");
+        data.writeBoolean(gradientColour != null);
+        data.writeInt(gradientColour != null ? parseColour(apiLevel, "gradient_colour", gradientColour) : 0);
+        String font = section.get("font");
+        data.writeUTF(font != null ? font : "");
+        data.writeFloat(parseFloat(apiLevel, section, "font_size"));
+        for (String key : DIMENSION_KEYS) {
+            data.writeFloat(parseFloat(apiLevel, section, key));
+        }
+
+        String[] networkIcons = require(apiLevel, section, "network_icons").split("\\s+");
+        if (networkIcons.length != StatusBarIcons.NETWORK_SLOT_COUNT) {
+            throw new IllegalArgumentException("Profile " + apiLevel + " needs " + StatusBarIcons.NETWORK_SLOT_COUNT + " network_icons");
+        }
+        for (String icon : networkIcons) {
+            data.writeInt(parseIcon(apiLevel, icon));
+        }
+        data.writeInt(parseIcon(apiLevel, require(apiLevel, section, "wifi_icon")));
+        data.writeInt(parseIcon(apiLevel, require(apiLevel, section, "gps_icon")));
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    private static String require(int apiLevel, Map<String, String> section, String key) {
+        String value = section.get(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Profile " + apiLevel + " has no " + key);
+        }
+        return value;
+    }
+
+    private static float parseFloat(int apiLevel, Map<String, String> section, String key) {
+        String value = require(apiLevel, section, key);
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Profile " + apiLevel + " " + key + " is not a number: " + value);
+        }
+    }
+
+    private static int parseColour(int apiLevel, String key, String value) {
+        if (value.length() != 9 || value.charAt(0) != '#') {
+            throw new IllegalArgumentException("Profile " + apiLevel + " " + key + " is not #AARRGGBB: " + value);
+        }
+        try {
+            return (int) Long.parseLong(value.substring(1), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Profile " + apiLevel + " " + key + " is not #AARRGGBB: " + value);
+        }
+    }
+
+    private static int parseIcon(int apiLevel, String name) {
+        int id = StatusBarIcons.getId(name);
+        if (id < 0) {
+            throw new IllegalArgumentException("Profile " + apiLevel + " has an unknown icon " + name);
+        }
+        return id;
+    }
+
+    private static IllegalArgumentException error(int lineNumber, String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Read only view of the profiles written by {@link ProfileCompiler}. The file is a header, a
+ * table of (API level, record offset) entries sorted by API level and then one record per
+ * profile, so opening it reads nothing but the header and a profile is only decoded when asked for.
+ */
+public final class ProfileIndex {
+    static final int MAGIC = 0x53425031; // "SBP1"
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_SIZE = 8;
+
+    private final ByteBuffer mBuffer;
+    private final int mCount;
+
+    /**
+     * @param buffer the whole file, a mapped buffer works as well as a wrapped array
+     */
+    public ProfileIndex(ByteBuffer buffer) {
+        mBuffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a profile index");
+        }
+        mCount = buffer.getInt(4);
+        if (mCount <= 0 || HEADER_SIZE + mCount * ENTRY_SIZE > buffer.limit()) {
+            throw new IllegalArgumentException("Bad profile count " + mCount);
+        }
+    }
+
+    /**
+     * Reads the whole stream into memory.
+     */
+    public static ProfileIndex read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(in.available(), 1024));
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, count);
+        }
+        return new ProfileIndex(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getApiLevel(int position) {
+        return mBuffer.getInt(HEADER_SIZE + position * ENTRY_SIZE);
+    }
+
+    /**
+     * @return the position of the profile for the API level, the closest one below it if there is
+     * no exact match or the first one if the level is below every profile
+     */
+    public int find(int apiLevel) {
+        int low = 0;
+        int high = mCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleLevel = getApiLevel(middle);
+            if (middleLevel < apiLevel) {
+                low = middle + 1;
+            } else if (middleLevel > apiLevel) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return Math.max(high, 0);
+    }
+
+    public String getLabel(int position) {
+        try {
+            return openRecord(position).readUTF();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Bad profile record " + position, e);
+        }
+    }
+
+    /**
+     * Decodes one profile, converting its dp sizes to pixels.
+     */
+    public StatusBarProfile createProfile(int position, float density) {
+        try {
+            DataInputStream data = openRecord(position);
+            data.readUTF();
+            int foregroundColour = data.readInt();
+            boolean hasGradient = data.readBoolean();
+            int gradientForegroundColour = data.readInt();
+            String font = data.readUTF();
+            float fontSize = data.readFloat();
+            int rightPadding = dpToPx(data.readFloat(), density);
+            int batteryWidth = dpToPx(data.readFloat(), density);
+            int batteryHeight = dpToPx(data.readFloat(), density);
+            int batteryBottomMargin = dpToPx(data.readFloat(), density);
+            int networkIconPaddingOffset = dpToPx(data.readFloat(), density);
+            int wifiPaddingOffset = dpToPx(data.readFloat(), density);
+            int[] networkIcons = new int[StatusBarIcons.NETWORK_SLOT_COUNT];
+            for (int i = 0; i < networkIcons.length; i++) {
+                networkIcons[i] = readIcon(data);
+            }
+            int wifiIcon = readIcon(data);
+            int gpsIcon = readIcon(data);
+
+            return new StatusBarProfile(getApiLevel(position), foregroundColour,
+                    hasGradient ? gradientForegroundColour : foregroundColour, hasGradient,
+                    font.isEmpty() ? null : font, fontSize, rightPadding, batteryWidth, batteryHeight,
+                    batteryBottomMargin, networkIconPaddingOffset, wifiPaddingOffset, networkIcons, wifiIcon, gpsIcon);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Bad profile record " + position, e);
+        }
+    }
+
+    static int dpToPx(float dp, float density) {
+        return (int) (dp * density);
+    }
+
+    private static int readIcon(DataInputStream data) throws IOException {
+        int icon = data.readInt();
+        if (icon < 0 || icon >= StatusBarIcons.COUNT) {
+            throw new IOException("Unknown icon " + icon);
+        }
+        return icon;
+    }
+
+    private DataInputStream openRecord(int position) {
+        if (position < 0 || position >= mCount) {
+            throw new IndexOutOfBoundsException("No profile at " + position + ", there are " + mCount);
+        }
+        int start = mBuffer.getInt(HEADER_SIZE + position * ENTRY_SIZE + 4);
+        int end = position + 1 < mCount ? mBuffer.getInt(HEADER_SIZE + (position + 1) * ENTRY_SIZE + 4) : mBuffer.limit();
+        if (start < HEADER_SIZE + mCount * ENTRY_SIZE || end < start || end > mBuffer.limit()) {
+            throw new IllegalArgumentException("Bad profile offset " + start);
+        }
+
+        byte[] record = new byte[end - start];
+        ByteBuffer view = mBuffer.duplicate();
+        view.position(start);
+        view.get(record);
+        return new DataInputStream(new ByteArrayInputStream(record));
+    }
+}
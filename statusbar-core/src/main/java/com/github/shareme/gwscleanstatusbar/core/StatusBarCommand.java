@@ -0,0 +1,187 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * One scripted status bar change in the style of SystemUI demo mode, parsed from key=value text:
+ *
+ * <ul>
+ * <li>clock=HHMM, 24 hour, "HH:MM" is accepted as well</li>
+ * <li>network=hide|empty|g|e|3g|h|lte|roam</li>
+ * <li>wifi=show|hide</li>
+ * <li>gps=show|hide</li>
+ * <li>bg=#RRGGBB or #AARRGGBB</li>
+ * <li>api=21</li>
+ * <li>reset, back to what the preferences say</li>
+ * </ul>
+ */
+public final class StatusBarCommand {
+    public static final int TYPE_CLOCK = 0;
+    public static final int TYPE_NETWORK = 1;
+    public static final int TYPE_WIFI = 2;
+    public static final int TYPE_GPS = 3;
+    public static final int TYPE_BACKGROUND = 4;
+    public static final int TYPE_API = 5;
+    public static final int TYPE_RESET = 6;
+
+    private static final String[] KEYS = {"clock", "network", "wifi", "gps", "bg", "api", "reset"};
+
+    // the network icon preference values, -1 hides the icon
+    private static final String[] NETWORK_NAMES = {"hide", "empty", "g", "e", "3g", "h", "lte", "roam"};
+    private static final int[] NETWORK_ICONS = {-1, 0, 1, 2, 3, 4, 5, StatusBarIcons.NETWORK_ICON_ROAMING};
+
+    private final int mType;
+    private final int mValue;
+
+    private StatusBarCommand(int type, int value) {
+        mType = type;
+        mValue = value;
+    }
+
+    public int getType() {
+        return mType;
+    }
+
+    /**
+     * @return the minute of the day, network icon, 1 for show and 0 for hide, ARGB colour or API
+     * level, depending on the type
+     */
+    public int getValue() {
+        return mValue;
+    }
+
+    public boolean isShown() {
+        return mValue != 0;
+    }
+
+    /**
+     * @param command "key=value", or just "reset"
+     * @throws IllegalArgumentException if the command is unknown or its value does not parse
+     */
+    public static StatusBarCommand parse(String command) {
+        int separator = command.indexOf('=');
+        if (separator < 0) {
+            return parse(command.trim(), "");
+        }
+        return parse(command.substring(0, separator).trim(), command.substring(separator + 1).trim());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the key is unknown or the value does not parse
+     */
+    public static StatusBarCommand parse(String key, String value) {
+        int type = indexOf(KEYS, key);
+        switch (type) {
+            case TYPE_CLOCK:
+                return new StatusBarCommand(type, parseClock(value));
+            case TYPE_NETWORK:
+                int network = indexOf(NETWORK_NAMES, value);
+                if (network < 0) {
+                    throw error(key, value);
+                }
+                return new StatusBarCommand(type, NETWORK_ICONS[network]);
+            case TYPE_WIFI:
+            case TYPE_GPS:
+                if ("show".equals(value)) {
+                    return new StatusBarCommand(type, 1);
+                } else if ("hide".equals(value)) {
+                    return new StatusBarCommand(type, 0);
+                }
+                throw error(key, value);
+            case TYPE_BACKGROUND:
+                return new StatusBarCommand(type, parseColour(value));
+            case TYPE_API:
+                return new StatusBarCommand(type, parseApiLevel(value));
+            case TYPE_RESET:
+                return new StatusBarCommand(type, 0);
+            default:
+                throw new IllegalArgumentException("Unknown command " + key);
+        }
+    }
+
+    public static String getKey(int type) {
+        return KEYS[type];
+    }
+
+    private static int parseClock(String value) {
+        int minuteOfDay = TimeCodec.parse(value);
+        if (minuteOfDay == TimeCodec.INVALID && value.length() == 4) {
+            minuteOfDay = TimeCodec.parse(value.substring(0, 2) + ":" + value.substring(2));
+        }
+        if (minuteOfDay == TimeCodec.INVALID) {
+            throw error("clock", value);
+        }
+        return minuteOfDay;
+    }
+
+    private static int parseColour(String value) {
+        if ((value.length() != 7 && value.length() != 9) || value.charAt(0) != '#') {
+            throw error("bg", value);
+        }
+        // hex digits only, parseLong would take a sign as well
+        int colour = 0;
+        for (int i = 1; i < value.length(); i++) {
+            int digit = hexDigit(value.charAt(i));
+            if (digit < 0) {
+                throw error("bg", value);
+            }
+            colour = (colour << 4) | digit;
+        }
+        // #RRGGBB is opaque
+        return value.length() == 7 ? 0xff000000 | colour : colour;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int parseApiLevel(String value) {
+        try {
+            int apiLevel = Integer.parseInt(value);
+            if (apiLevel > 0) {
+                return apiLevel;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw error("api", value);
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static IllegalArgumentException error(String key, String value) {
+        return new IllegalArgumentException("Bad value for " + key + ": " + value);
+    }
+
+    @Override
+    public String toString() {
+        return KEYS[mType] + "=" + mValue;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * Ids of the status bar icons a {@link StatusBarProfile} refers to, the app maps each one to a
+ * drawable with an array of {@link #COUNT} resource ids.
+ */
+public final class StatusBarIcons {
+    public static final int NETWORK_OFF = 0;
+    public static final int NETWORK_G = 1;
+    public static final int NETWORK_E = 2;
+    public static final int NETWORK_3G = 3;
+    public static final int NETWORK_H = 4;
+    public static final int NETWORK_LTE = 5;
+    public static final int NETWORK_ROAM = 6;
+    public static final int NETWORK_OFF_L = 7;
+    public static final int NETWORK_G_L = 8;
+    public static final int NETWORK_E_L = 9;
+    public static final int NETWORK_3G_L = 10;
+    public static final int NETWORK_H_L = 11;
+    public static final int NETWORK_LTE_L = 12;
+    public static final int NETWORK_ROAM_L = 13;
+    public static final int WIFI_FULL = 14;
+    public static final int WIFI_FULL_L = 15;
+    public static final int GPS_16 = 16;
+    public static final int GPS_19 = 17;
+
+    public static final int COUNT = 18;
+
+    /**
+     * Names of the ids in profile sources, index is the id.
+     */
+    private static final String[] NAMES = {
+            "network_off", "network_g", "network_e", "network_3g", "network_h", "network_lte", "network_roam",
+            "network_off_l", "network_g_l", "network_e_l", "network_3g_l", "network_h_l", "network_lte_l", "network_roam_l",
+            "wifi_full", "wifi_full_l", "gps_16", "gps_19"
+    };
+
+    /**
+     * Network icon preference value for roaming, 1 to 5 are G, E, 3G, H and LTE.
+     */
+    public static final int NETWORK_ICON_ROAMING = 99;
+
+    /**
+     * Number of network icons in a profile, off, 1 to 5 and roaming.
+     */
+    public static final int NETWORK_SLOT_COUNT = 7;
+
+    private StatusBarIcons() {
+    }
+
+    /**
+     * @return the id with that name in profile sources, -1 if there is none
+     */
+    public static int getId(String name) {
+        for (int id = 0; id < NAMES.length; id++) {
+            if (NAMES[id].equals(name)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public static String getName(int id) {
+        return NAMES[id];
+    }
+
+    /**
+     * @param networkIcon the network icon preference value
+     * @return its index in a profile's network icons, anything unknown is off
+     */
+    public static int getNetworkSlot(int networkIcon) {
+        if (networkIcon >= 1 && networkIcon <= 5) {
+            return networkIcon;
+        }
+        if (networkIcon == NETWORK_ICON_ROAMING) {
+            return NETWORK_SLOT_COUNT - 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * Everything that differs between the emulated Android versions, with dimensions already in
+ * pixels for one density. Instances come from a {@link StatusBarProfileTable}.
+ */
+public final class StatusBarProfile {
+    private final int mApiLevel;
+    private final int mForegroundColour;
+    private final int mGradientForegroundColour;
+    private final boolean mHasGradient;
+    private final String mFontAsset;
+    private final float mFontSize;
+    private final int mRightPadding;
+    private final int mBatteryWidth;
+    private final int mBatteryHeight;
+    private final int mBatteryBottomMargin;
+    private final int mNetworkIconPaddingOffset;
+    private final int mWifiPaddingOffset;
+    private final int[] mNetworkIcons;
+    private final int mWifiIcon;
+    private final int mGpsIcon;
+
+    StatusBarProfile(int apiLevel, int foregroundColour, int gradientForegroundColour, boolean hasGradient,
+                     String fontAsset, float fontSize, int rightPadding, int batteryWidth, int batteryHeight,
+                     int batteryBottomMargin, int networkIconPaddingOffset, int wifiPaddingOffset,
+                     int[] networkIcons, int wifiIcon, int gpsIcon) {
+        if (networkIcons.length != StatusBarIcons.NETWORK_SLOT_COUNT) {
+            throw new IllegalArgumentException("Expected " + StatusBarIcons.NETWORK_SLOT_COUNT + " network icons, got " + networkIcons.length);
+        }
+        mApiLevel = apiLevel;
+        mForegroundColour = foregroundColour;
+        mGradientForegroundColour = gradientForegroundColour;
+        mHasGradient = hasGradient;
+        mFontAsset = fontAsset;
+        mFontSize = fontSize;
+        mRightPadding = rightPadding;
+        mBatteryWidth = batteryWidth;
+        mBatteryHeight = batteryHeight;
+        mBatteryBottomMargin = batteryBottomMargin;
+        mNetworkIconPaddingOffset = networkIconPaddingOffset;
+        mWifiPaddingOffset = wifiPaddingOffset;
+        mNetworkIcons = networkIcons.clone();
+        mWifiIcon = wifiIcon;
+        mGpsIcon = gpsIcon;
+    }
+
+    public int getApiLevel() {
+        return mApiLevel;
+    }
+
+    /**
+     * @return true if this version can draw the status bar as a gradient, KitKat only
+     */
+    public boolean hasGradient() {
+        return mHasGradient;
+    }
+
+    public int getForegroundColour(boolean isGradientDrawn) {
+        return isGradientDrawn && mHasGradient ? mGradientForegroundColour : mForegroundColour;
+    }
+
+    /**
+     * @return the clock font asset path, null for the system font
+     */
+    public String getFontAsset() {
+        return mFontAsset;
+    }
+
+    /**
+     * @return the clock text size in sp
+     */
+    public float getFontSize() {
+        return mFontSize;
+    }
+
+    public int getRightPadding() {
+        return mRightPadding;
+    }
+
+    public int getBatteryWidth() {
+        return mBatteryWidth;
+    }
+
+    public int getBatteryHeight() {
+        return mBatteryHeight;
+    }
+
+    public int getBatteryBottomMargin() {
+        return mBatteryBottomMargin;
+    }
+
+    public int getNetworkIconPaddingOffset() {
+        return mNetworkIconPaddingOffset;
+    }
+
+    public int getWifiPaddingOffset() {
+        return mWifiPaddingOffset;
+    }
+
+    /**
+     * @param networkIcon the network icon preference value
+     * @return one of the {@link StatusBarIcons} ids
+     */
+    public int getNetworkIcon(int networkIcon) {
+        return mNetworkIcons[StatusBarIcons.getNetworkSlot(networkIcon)];
+    }
+
+    public int getWifiIcon() {
+        return mWifiIcon;
+    }
+
+    public int getGpsIcon() {
+        return mGpsIcon;
+    }
+}
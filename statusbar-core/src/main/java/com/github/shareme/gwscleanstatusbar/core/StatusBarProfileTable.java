@@ -0,0 +1,53 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * The profiles of a {@link ProfileIndex} at one screen density. A profile is decoded the first
+ * time its API level is asked for and kept, so only the ones in use are ever built.
+ */
+public final class StatusBarProfileTable {
+    private final ProfileIndex mIndex;
+    private final float mDensity;
+    private final StatusBarProfile[] mProfiles;
+
+    public StatusBarProfileTable(ProfileIndex index, float density) {
+        mIndex = index;
+        mDensity = density;
+        mProfiles = new StatusBarProfile[index.getCount()];
+    }
+
+    public ProfileIndex getIndex() {
+        return mIndex;
+    }
+
+    public float getDensity() {
+        return mDensity;
+    }
+
+    /**
+     * @return the profile for the API level, see {@link ProfileIndex#find(int)} for levels without one
+     */
+    public synchronized StatusBarProfile get(int apiLevel) {
+        int position = mIndex.find(apiLevel);
+        StatusBarProfile profile = mProfiles[position];
+        if (profile == null) {
+            profile = mIndex.createProfile(position, mDensity);
+            mProfiles[position] = profile;
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of status bar states to step through, one per line, each line the
+ * {@link StatusBarCommand}s that turn the state before it into this one:
+ *
+ * <pre>
+ * # lock screen shots
+ * reset clock=0900 network=lte wifi=show
+ * gps=show
+ * bg=#33b5e5 api=19
+ * </pre>
+ *
+ * Blank lines and lines starting with '#' are skipped.
+ */
+public final class StatusBarScenario {
+    private final List<List<StatusBarCommand>> mSteps;
+
+    private StatusBarScenario(List<List<StatusBarCommand>> steps) {
+        mSteps = steps;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the line of the first command that does not parse
+     */
+    public static StatusBarScenario read(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        List<List<StatusBarCommand>> steps = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+
+            List<StatusBarCommand> step = new ArrayList<>();
+            for (String command : line.split("\\s+")) {
+                try {
+                    step.add(StatusBarCommand.parse(command));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+            steps.add(Collections.unmodifiableList(step));
+        }
+        return new StatusBarScenario(steps);
+    }
+
+    public int getStepCount() {
+        return mSteps.size();
+    }
+
+    public List<StatusBarCommand> getStep(int index) {
+        return mSteps.get(index);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+/**
+ * Clock times packed into a single int, the minute of the day. Parsing and formatting work on
+ * char sequences and caller owned char buffers so neither allocates.
+ */
+public final class TimeCodec {
+    public static final int MINUTES_PER_HOUR = 60;
+    public static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+
+    /**
+     * 12:00, the same as TimePreference.DEFAULT_TIME_VALUE
+     */
+    public static final int DEFAULT_MINUTE_OF_DAY = 12 * MINUTES_PER_HOUR;
+
+    /**
+     * Longest output of {@link #format(int, boolean, char[], int)}, "23:59"
+     */
+    public static final int MAX_FORMATTED_LENGTH = 5;
+
+    public static final int INVALID = -1;
+
+    private TimeCodec() {
+    }
+
+    public static int pack(int hourOfDay, int minute) {
+        if (hourOfDay < 0 || hourOfDay > 23 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("Not a time of day " + hourOfDay + ":" + minute);
+        }
+        return hourOfDay * MINUTES_PER_HOUR + minute;
+    }
+
+    public static int getHourOfDay(int minuteOfDay) {
+        return minuteOfDay / MINUTES_PER_HOUR;
+    }
+
+    public static int getMinute(int minuteOfDay) {
+        return minuteOfDay % MINUTES_PER_HOUR;
+    }
+
+    /**
+     * Reads the "H:MM" and "HH:MM" strings TimePreference has always stored. An hour above 23
+     * or a minute above 59 is rejected, leading and trailing whitespace is not allowed.
+     *
+     * @return the minute of the day or {@link #INVALID}
+     */
+    public static int parse(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+
+        int length = text.length();
+        int hour = 0;
+        int i = 0;
+        for (; i < length && text.charAt(i) != ':'; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || i >= 2) {
+                return INVALID;
+            }
+            hour = hour * 10 + digit;
+        }
+        if (i == 0 || i == length || length - i - 1 != 2) {
+            return INVALID;
+        }
+
+        int tens = text.charAt(i + 1) - '0';
+        int units = text.charAt(i + 2) - '0';
+        if (tens < 0 || tens > 5 || units < 0 || units > 9 || hour > 23) {
+            return INVALID;
+        }
+        return hour * MINUTES_PER_HOUR + tens * 10 + units;
+    }
+
+    /**
+     * @return the parsed minute of the day, or the fallback if the text is not a time
+     */
+    public static int parse(CharSequence text, int fallback) {
+        int minuteOfDay = parse(text);
+        return minuteOfDay == INVALID ? fallback : minuteOfDay;
+    }
+
+    /**
+     * Writes "9:05" style text in 12 hour format, "09:05" in 24 hour format. 12 hour text is for
+     * showing only, {@link #parse(CharSequence)} reads "12:05" as noon whichever half it came from.
+     *
+     * @param buffer needs {@link #MAX_FORMATTED_LENGTH} chars from offset
+     * @return the number of chars written
+     */
+    public static int format(int minuteOfDay, boolean is24HourFormat, char[] buffer, int offset) {
+        int hour = getHourOfDay(minuteOfDay);
+        int minute = getMinute(minuteOfDay);
+
+        int position = offset;
+        if (is24HourFormat) {
+            buffer[position++] = (char) ('0' + hour / 10);
+            buffer[position++] = (char) ('0' + hour % 10);
+        } else {
+            hour = hour % 12;
+            if (hour == 0) {
+                hour = 12;
+            }
+            if (hour >= 10) {
+                buffer[position++] = (char) ('0' + hour / 10);
+            }
+            buffer[position++] = (char) ('0' + hour % 10);
+        }
+        buffer[position++] = ':';
+        buffer[position++] = (char) ('0' + minute / 10);
+        buffer[position++] = (char) ('0' + minute % 10);
+        return position - offset;
+    }
+
+    /**
+     * Allocating convenience for callers that have to end up with a String anyway.
+     */
+    public static String toString(int minuteOfDay, boolean is24HourFormat) {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        return new String(buffer, 0, format(minuteOfDay, is24HourFormat, buffer, 0));
+    }
+}
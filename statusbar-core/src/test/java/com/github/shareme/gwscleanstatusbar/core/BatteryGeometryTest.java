@@ -0,0 +1,49 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatteryGeometryTest {
+    private static final float DELTA = 0.0001f;
+
+    @Test
+    public void laysOutFrameBelowTheButton() {
+        float[] geometry = new float[BatteryGeometry.SIZE];
+        int buttonHeight = BatteryGeometry.layout(2, 3, 40, 100, geometry);
+
+        assertEquals(12, buttonHeight);
+
+        assertEquals(2.4f, geometry[BatteryGeometry.FRAME], DELTA);
+        assertEquals(15.4f, geometry[BatteryGeometry.FRAME + 1], DELTA);
+        assertEquals(41.6f, geometry[BatteryGeometry.FRAME + 2], DELTA);
+        assertEquals(102.6f, geometry[BatteryGeometry.FRAME + 3], DELTA);
+
+        assertEquals(12.4f, geometry[BatteryGeometry.BUTTON], DELTA);
+        assertEquals(3.4f, geometry[BatteryGeometry.BUTTON + 1], DELTA);
+        assertEquals(31.6f, geometry[BatteryGeometry.BUTTON + 2], DELTA);
+        assertEquals(20f, geometry[BatteryGeometry.BUTTON + 3], DELTA);
+    }
+
+    @Test
+    public void buttonHeightRoundsDown() {
+        float[] geometry = new float[BatteryGeometry.SIZE];
+        assertEquals(1, BatteryGeometry.layout(0, 0, 10, 16, geometry));
+        assertEquals(0, BatteryGeometry.layout(0, 0, 10, 8, geometry));
+    }
+}
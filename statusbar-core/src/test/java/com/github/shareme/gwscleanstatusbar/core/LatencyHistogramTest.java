@@ -0,0 +1,91 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    public void keepsSmallValuesExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < LatencyHistogram.SUB_BUCKET_COUNT; i++) {
+            histogram.record(i);
+        }
+        assertEquals(3, histogram.getValueAtPercentile(50));
+        assertEquals(7, histogram.getValueAtPercentile(100));
+        assertEquals(7, histogram.getMax());
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        long[] values = {8, 9, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.getBucket(value);
+            long upperBound = LatencyHistogram.getBucketUpperBound(bucket);
+            assertTrue(value + " above " + upperBound, value <= upperBound);
+            assertTrue(value + " in too wide a bucket", upperBound - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+            if (value < Long.MAX_VALUE) {
+                assertTrue(LatencyHistogram.getBucket(upperBound + 1) == bucket + 1);
+            }
+        }
+    }
+
+    @Test
+    public void percentilesStayWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5000, histogram.getMean());
+        assertEquals(10000, histogram.getMax());
+        assertWithin(5000, histogram.getValueAtPercentile(50));
+        assertWithin(9000, histogram.getValueAtPercentile(90));
+        assertWithin(9900, histogram.getValueAtPercentile(99));
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(42);
+        assertEquals(0, histogram.getValueAtPercentile(1));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " below " + expected, actual >= expected);
+        assertTrue(actual + " too far above " + expected, actual <= expected + expected / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+}
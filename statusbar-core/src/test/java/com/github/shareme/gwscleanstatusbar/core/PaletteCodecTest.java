@@ -0,0 +1,92 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PaletteCodecTest {
+
+    @Test
+    public void roundTrips() {
+        List<NamedColour> colours = Arrays.asList(
+                new NamedColour("Holo blue", 0xff33b5e5),
+                new NamedColour("Transparent", 0),
+                new NamedColour("back\\slash\nnew line\rreturn", 0x80123456),
+                new NamedColour("", 0xffffffff));
+
+        String encoded = PaletteCodec.encode(colours);
+        assertTrue(encoded.startsWith(PaletteCodec.HEADER + "\nFF33B5E5 Holo blue\n"));
+        assertFalse(PaletteCodec.isLegacy(encoded));
+
+        assertSame(colours, PaletteCodec.decode(encoded));
+    }
+
+    @Test
+    public void roundTripsEmptyPalette() {
+        assertEquals(0, PaletteCodec.decode(PaletteCodec.encode(Collections.<NamedColour>emptyList())).size());
+    }
+
+    @Test
+    public void nothingStored() {
+        assertNull(PaletteCodec.decode(null));
+        assertNull(PaletteCodec.decode(""));
+        assertNull(PaletteCodec.decode("null"));
+    }
+
+    @Test
+    public void readsGsonJson() {
+        String json = "[{\"mColourValue\":-13388315,\"mColourName\":\"Holo blue\"},"
+                + "{\"mColourName\":\"Quote \\\" and \\u003d\",\"mColourValue\":0}, "
+                + "{ \"mColourValue\" : -1 , \"mColourName\" : \"White\" , \"extra\" : true }]";
+        assertTrue(PaletteCodec.isLegacy(json));
+
+        List<NamedColour> expected = new ArrayList<>();
+        expected.add(new NamedColour("Holo blue", 0xff33b5e5));
+        expected.add(new NamedColour("Quote \" and =", 0));
+        expected.add(new NamedColour("White", 0xffffffff));
+        assertSame(expected, PaletteCodec.decode(json));
+
+        assertEquals(0, PaletteCodec.decode("[]").size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownFormat() {
+        PaletteCodec.decode("colours");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedRecord() {
+        PaletteCodec.decode(PaletteCodec.HEADER + "\nFF33B5");
+    }
+
+    private static void assertSame(List<NamedColour> expected, List<NamedColour> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+        }
+    }
+}
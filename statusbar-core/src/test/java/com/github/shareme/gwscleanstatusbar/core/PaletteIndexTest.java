@@ -0,0 +1,105 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PaletteIndexTest {
+
+    @Test
+    public void insertKeepsTheOrderOfAFullSort() {
+        Random random = new Random(42);
+        List<NamedColour> sorted = new ArrayList<>();
+        List<NamedColour> all = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            NamedColour colour = new NamedColour(randomName(random), random.nextInt());
+            all.add(colour);
+            sorted = PaletteIndex.insert(sorted, colour);
+        }
+
+        Collections.sort(all);
+        assertEquals(all.size(), sorted.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(all.get(i).getName(), sorted.get(i).getName());
+        }
+    }
+
+    @Test
+    public void insertsAfterEqualNames() {
+        NamedColour first = new NamedColour("Red", 0xffff0000);
+        NamedColour second = new NamedColour("Red", 0xffcc0000);
+        List<NamedColour> sorted = PaletteIndex.insert(PaletteIndex.insert(new ArrayList<NamedColour>(), first), second);
+        assertSame(first, sorted.get(0));
+        assertSame(second, sorted.get(1));
+    }
+
+    @Test
+    public void filtersByNamePrefixIgnoringCase() {
+        List<NamedColour> sorted = sortedPalette("Black", "blue", "Blue grey", "Brown", "bl", "Cyan", "b");
+
+        List<NamedColour> matches = PaletteIndex.filter(sorted, "BL");
+        assertEquals(4, matches.size());
+        for (NamedColour colour : matches) {
+            assertTrue(colour.getName().toLowerCase().startsWith("bl"));
+        }
+
+        assertEquals(6, PaletteIndex.filter(sorted, "b").size());
+        assertEquals(0, PaletteIndex.filter(sorted, "z").size());
+        assertSame(sorted, PaletteIndex.filter(sorted, ""));
+    }
+
+    @Test
+    public void filtersByHexPrefix() {
+        List<NamedColour> sorted = new ArrayList<>();
+        sorted.add(new NamedColour("Holo blue", 0xff33b5e5));
+        sorted.add(new NamedColour("Half blue", 0x8033b5e5));
+        sorted.add(new NamedColour("Red", 0xffff0000));
+        Collections.sort(sorted);
+
+        assertEquals(3, PaletteIndex.filter(sorted, "#").size());
+        assertEquals(2, PaletteIndex.filter(sorted, "#ff").size());
+        assertEquals(2, PaletteIndex.filter(sorted, "#33b5").size());
+        assertEquals(1, PaletteIndex.filter(sorted, "#8033B5E5").size());
+        assertEquals(0, PaletteIndex.filter(sorted, "#zz").size());
+        assertEquals(0, PaletteIndex.filter(sorted, "#ff33b5e500").size());
+    }
+
+    private static List<NamedColour> sortedPalette(String... names) {
+        List<NamedColour> colours = new ArrayList<>();
+        for (String name : names) {
+            colours.add(new NamedColour(name, 0));
+        }
+        Collections.sort(colours);
+        return colours;
+    }
+
+    private static String randomName(Random random) {
+        char[] chars = new char[1 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(4));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProfileCompilerTest {
+    static final String JELLY_BEAN = "[16]\n"
+            + "label = Jelly Bean (v16)\n"
+            + "foreground_colour = #ff33b5e5\n"
+            + "font_size = 16\n"
+            + "right_padding = 6\n"
+            + "battery_width = 10.5\n"
+            + "battery_height = 16\n"
+            + "battery_bottom_margin = 0.33\n"
+            + "network_icon_padding_offset = 0\n"
+            + "wifi_padding_offset = 0\n"
+            + "network_icons = network_off network_g network_e network_3g network_h network_lte network_roam\n"
+            + "wifi_icon = wifi_full\n"
+            + "gps_icon = gps_16\n";
+
+    static final String KITKAT = "[19]\n"
+            + "label = KitKat (v19)\n"
+            + "foreground_colour = #ffbfbfbf\n"
+            + "gradient_colour = #ffffffff\n"
+            + "font = fonts/Roboto-Medium.ttf\n"
+            + "font_size = 14\n"
+            + "right_padding = 8\n"
+            + "battery_width = 10\n"
+            + "battery_height = 15.5\n"
+            + "battery_bottom_margin = 0\n"
+            + "network_icon_padding_offset = 3\n"
+            + "wifi_padding_offset = 4\n"
+            + "network_icons = network_off_l network_g_l network_e_l network_3g_l network_h_l network_lte_l network_roam_l\n"
+            + "wifi_icon = wifi_full_l\n"
+            + "gps_icon = gps_19\n";
+
+    static ProfileIndex compile(String source) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProfileCompiler.compile(new StringReader(source), out);
+        return new ProfileIndex(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void sortsProfilesByApiLevel() throws IOException {
+        ProfileIndex index = compile("# comment\n\n" + KITKAT + JELLY_BEAN);
+
+        assertEquals(2, index.getCount());
+        assertEquals(16, index.getApiLevel(0));
+        assertEquals(19, index.getApiLevel(1));
+        assertEquals("Jelly Bean (v16)", index.getLabel(0));
+        assertEquals("KitKat (v19)", index.getLabel(1));
+    }
+
+    @Test
+    public void decodesProfilesAtADensity() throws IOException {
+        ProfileIndex index = compile(JELLY_BEAN + KITKAT);
+
+        StatusBarProfile jellyBean = index.createProfile(0, 3f);
+        assertEquals(16, jellyBean.getApiLevel());
+        assertFalse(jellyBean.hasGradient());
+        assertEquals(0xff33b5e5, jellyBean.getForegroundColour(true));
+        assertNull(jellyBean.getFontAsset());
+        assertEquals(16f, jellyBean.getFontSize(), 0f);
+        assertEquals(18, jellyBean.getRightPadding());
+        assertEquals(31, jellyBean.getBatteryWidth());
+        assertEquals(48, jellyBean.getBatteryHeight());
+        assertEquals(0, jellyBean.getBatteryBottomMargin());
+        assertEquals(StatusBarIcons.NETWORK_ROAM, jellyBean.getNetworkIcon(StatusBarIcons.NETWORK_ICON_ROAMING));
+        assertEquals(StatusBarIcons.WIFI_FULL, jellyBean.getWifiIcon());
+        assertEquals(StatusBarIcons.GPS_16, jellyBean.getGpsIcon());
+
+        StatusBarProfile kitKat = index.createProfile(1, 4f);
+        assertTrue(kitKat.hasGradient());
+        assertEquals(0xffbfbfbf, kitKat.getForegroundColour(false));
+        assertEquals(0xffffffff, kitKat.getForegroundColour(true));
+        assertEquals("fonts/Roboto-Medium.ttf", kitKat.getFontAsset());
+        assertEquals(12, kitKat.getNetworkIconPaddingOffset());
+        assertEquals(16, kitKat.getWifiPaddingOffset());
+        assertEquals(StatusBarIcons.NETWORK_3G_L, kitKat.getNetworkIcon(3));
+    }
+
+    @Test
+    public void rejectsBadSources() throws IOException {
+        String[] invalid = {
+                "",
+                "label = no section\n",
+                "[abc]\n",
+                JELLY_BEAN + JELLY_BEAN,
+                JELLY_BEAN.replace("label = Jelly Bean (v16)\n", ""),
+                JELLY_BEAN.replace("#ff33b5e5", "#33b5e5"),
+                JELLY_BEAN.replace("font_size = 16", "font_size = big"),
+                JELLY_BEAN.replace(" network_roam\n", "\n"),
+                JELLY_BEAN.replace("gps_16", "gps_99")
+        };
+        for (String source : invalid) {
+            try {
+                compile(source);
+                fail("Compiled " + source);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOtherFiles() {
+        new ProfileIndex(ByteBuffer.wrap("palette/1\n".getBytes()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StatusBarCommandTest {
+
+    @Test
+    public void parsesClock() {
+        assertCommand(StatusBarCommand.TYPE_CLOCK, TimeCodec.pack(9, 5), "clock=0905");
+        assertCommand(StatusBarCommand.TYPE_CLOCK, TimeCodec.pack(23, 59), "clock=2359");
+        assertCommand(StatusBarCommand.TYPE_CLOCK, TimeCodec.pack(12, 0), "clock=12:00");
+    }
+
+    @Test
+    public void parsesNetwork() {
+        assertCommand(StatusBarCommand.TYPE_NETWORK, -1, "network=hide");
+        assertCommand(StatusBarCommand.TYPE_NETWORK, 0, "network=empty");
+        assertCommand(StatusBarCommand.TYPE_NETWORK, 5, "network=lte");
+        assertCommand(StatusBarCommand.TYPE_NETWORK, StatusBarIcons.NETWORK_ICON_ROAMING, "network=roam");
+    }
+
+    @Test
+    public void parsesShowAndHide() {
+        assertTrue(StatusBarCommand.parse("wifi=show").isShown());
+        assertFalse(StatusBarCommand.parse("wifi=hide").isShown());
+        assertTrue(StatusBarCommand.parse("gps", "show").isShown());
+        assertEquals(StatusBarCommand.TYPE_GPS, StatusBarCommand.parse("gps=hide").getType());
+    }
+
+    @Test
+    public void parsesBackground() {
+        assertCommand(StatusBarCommand.TYPE_BACKGROUND, 0xff33b5e5, "bg=#33b5e5");
+        assertCommand(StatusBarCommand.TYPE_BACKGROUND, 0x8033b5e5, "bg=#8033B5E5");
+    }
+
+    @Test
+    public void parsesApiLevelAndReset() {
+        assertCommand(StatusBarCommand.TYPE_API, 21, " api = 21 ");
+        assertEquals(StatusBarCommand.TYPE_RESET, StatusBarCommand.parse("reset").getType());
+    }
+
+    @Test
+    public void rejectsBadCommands() {
+        String[] invalid = {"volume=11", "clock=2400", "clock=123", "clock=", "network=5g", "wifi=on", "gps=",
+                "bg=33b5e5", "bg=#33b5e", "bg=#zzzzzz", "bg=#-1", "bg=#+ff0000",
+                "bg=#+ff000", "bg=#-ff000", "bg=#-0ff0000", "bg=#\uff11\uff11\uff11\uff11\uff11\uff11", "api=0", "api=lollipop", ""};
+        for (String command : invalid) {
+            try {
+                StatusBarCommand.parse(command);
+                fail(command);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static void assertCommand(int type, int value, String text) {
+        StatusBarCommand command = StatusBarCommand.parse(text);
+        assertEquals(text, type, command.getType());
+        assertEquals(text, value, command.getValue());
+    }
+}
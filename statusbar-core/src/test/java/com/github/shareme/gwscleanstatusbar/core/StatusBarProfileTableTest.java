@@ -0,0 +1,53 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class StatusBarProfileTableTest {
+    private StatusBarProfileTable mTable;
+
+    @Before
+    public void setUp() throws IOException {
+        mTable = new StatusBarProfileTable(ProfileCompilerTest.compile(ProfileCompilerTest.JELLY_BEAN + ProfileCompilerTest.KITKAT), 3f);
+    }
+
+    @Test
+    public void findsExactApiLevels() {
+        assertEquals(16, mTable.get(16).getApiLevel());
+        assertEquals(19, mTable.get(19).getApiLevel());
+    }
+
+    @Test
+    public void fallsBackToTheClosestLowerProfile() {
+        assertEquals(16, mTable.get(18).getApiLevel());
+        assertEquals(19, mTable.get(23).getApiLevel());
+        assertEquals(16, mTable.get(3).getApiLevel());
+        assertEquals(16, mTable.get(-1).getApiLevel());
+    }
+
+    @Test
+    public void keepsDecodedProfiles() {
+        assertSame(mTable.get(19), mTable.get(21));
+        assertSame(mTable.get(16), mTable.get(17));
+    }
+}
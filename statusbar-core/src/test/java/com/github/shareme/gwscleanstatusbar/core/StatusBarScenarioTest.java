@@ -0,0 +1,48 @@
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StatusBarScenarioTest {
+
+    @Test
+    public void readsOneStepPerLine() throws Exception {
+        StatusBarScenario scenario = StatusBarScenario.read(new StringReader("# lock screen\n"
+                + "reset clock=0900  network=lte\n"
+                + "\n"
+                + "  gps=show\n"
+                + "bg=#33b5e5\tapi=19\n"));
+
+        assertEquals(3, scenario.getStepCount());
+
+        List<StatusBarCommand> first = scenario.getStep(0);
+        assertEquals(3, first.size());
+        assertEquals(StatusBarCommand.TYPE_RESET, first.get(0).getType());
+        assertEquals(TimeCodec.pack(9, 0), first.get(1).getValue());
+        assertEquals(5, first.get(2).getValue());
+
+        assertEquals(StatusBarCommand.TYPE_GPS, scenario.getStep(1).get(0).getType());
+        assertEquals(19, scenario.getStep(2).get(1).getValue());
+    }
+
+    @Test
+    public void emptySourceHasNoSteps() throws Exception {
+        assertEquals(0, StatusBarScenario.read(new StringReader("# nothing\n\n")).getStepCount());
+    }
+
+    @Test
+    public void namesTheLineOfABadCommand() throws Exception {
+        try {
+            StatusBarScenario.read(new StringReader("clock=0900\n\nwifi=maybe\n"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 3: "));
+        }
+    }
+}
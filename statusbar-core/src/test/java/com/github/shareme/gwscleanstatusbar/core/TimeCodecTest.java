@@ -0,0 +1,80 @@
+/*
+ * Copyright(C) 2015 Fred Grott(GrottWorkShop)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.shareme.gwscleanstatusbar.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeCodecTest {
+
+    @Test
+    public void parsesStoredStrings() {
+        assertEquals(12 * 60, TimeCodec.parse("12:00"));
+        assertEquals(9 * 60 + 5, TimeCodec.parse("9:05"));
+        assertEquals(9 * 60 + 5, TimeCodec.parse("09:05"));
+        assertEquals(0, TimeCodec.parse("0:00"));
+        assertEquals(23 * 60 + 59, TimeCodec.parse("23:59"));
+    }
+
+    @Test
+    public void rejectsAnythingElse() {
+        String[] invalid = {null, "", ":", "12", "12:", ":00", "12:0", "12:000", "24:00", "12:60", "123:00", " 1:00", "1:00 ", "a:00", "1:a0"};
+        for (String text : invalid) {
+            assertEquals(text, TimeCodec.INVALID, TimeCodec.parse(text));
+        }
+        assertEquals(TimeCodec.DEFAULT_MINUTE_OF_DAY, TimeCodec.parse("nope", TimeCodec.DEFAULT_MINUTE_OF_DAY));
+    }
+
+    @Test
+    public void formatsTwelveHour() {
+        assertEquals("12:00", TimeCodec.toString(TimeCodec.pack(0, 0), false));
+        assertEquals("9:05", TimeCodec.toString(TimeCodec.pack(9, 5), false));
+        assertEquals("12:30", TimeCodec.toString(TimeCodec.pack(12, 30), false));
+        assertEquals("11:59", TimeCodec.toString(TimeCodec.pack(23, 59), false));
+    }
+
+    @Test
+    public void twelveHourMidnightIsOnlyShown() {
+        int midnight = TimeCodec.pack(0, 5);
+        assertEquals(12 * 60 + 5, TimeCodec.parse(TimeCodec.toString(midnight, false)));
+        assertEquals(midnight, TimeCodec.parse(TimeCodec.toString(midnight, true)));
+    }
+
+    @Test
+    public void formatsTwentyFourHour() {
+        assertEquals("00:00", TimeCodec.toString(TimeCodec.pack(0, 0), true));
+        assertEquals("09:05", TimeCodec.toString(TimeCodec.pack(9, 5), true));
+        assertEquals("23:59", TimeCodec.toString(TimeCodec.pack(23, 59), true));
+    }
+
+    @Test
+    public void formatsAtOffset() {
+        char[] buffer = "xx-----".toCharArray();
+        int length = TimeCodec.format(TimeCodec.pack(10, 0), false, buffer, 2);
+        assertEquals(5, length);
+        assertEquals("xx10:00", new String(buffer));
+    }
+
+    @Test
+    public void roundTripsEveryMinute() {
+        char[] buffer = new char[TimeCodec.MAX_FORMATTED_LENGTH];
+        for (int minuteOfDay = 0; minuteOfDay < TimeCodec.MINUTES_PER_DAY; minuteOfDay++) {
+            int length = TimeCodec.format(minuteOfDay, true, buffer, 0);
+            assertEquals(minuteOfDay, TimeCodec.parse(new String(buffer, 0, length)));
+        }
+    }
+}